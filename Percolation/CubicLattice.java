@@ -0,0 +1,53 @@
+/******************************************************************************
+ *  Compilation:   javac CubicLattice.java
+ *  Execution:     none
+ *  Dependencies:  Lattice.java
+ *
+ *  L-by-L-by-L simple cubic lattice with 6 neighbors, sites numbered
+ *  (z * L + y) * L + x; the top boundary is the layer z = 0 and the bottom
+ *  boundary is the layer z = L - 1.
+ ******************************************************************************/
+
+public class CubicLattice implements Lattice {
+    private final int L; // cube length
+    private final int layer; // L*L, sites per layer
+
+    /**
+     *   @param L the number of sides in cube
+     *   @throws IllegalArgumentException if L ≤ 0 or L*L*L overflows an int
+     */
+    public CubicLattice(int L) {
+        if (L <= 0) throw new IllegalArgumentException("L is less than 1, couldn't init a lattice.");
+        if ((long) L * L * L > Integer.MAX_VALUE) throw new IllegalArgumentException("L*L*L sites don't fit in an int index.");
+        this.L = L;
+        this.layer = L * L;
+    }
+
+    /**
+     *   @return index of the site at 0-based (x, y, z)
+     */
+    public int site(int x, int y, int z) {
+        return (z * L + y) * L + x;
+    }
+
+    public int sites() { return layer * L; }
+
+    public int maxDegree() { return 6; }
+
+    public int neighbors(int site, int[] out) {
+        int z = site / layer, rest = site - z * layer;
+        int y = rest / L, x = rest - y * L;
+        int count = 0;
+        if (z > 0) out[count++] = site - layer;
+        if (z < L - 1) out[count++] = site + layer;
+        if (y > 0) out[count++] = site - L;
+        if (y < L - 1) out[count++] = site + L;
+        if (x > 0) out[count++] = site - 1;
+        if (x < L - 1) out[count++] = site + 1;
+        return count;
+    }
+
+    public boolean isTop(int site) { return site < layer; }
+
+    public boolean isBottom(int site) { return site >= layer * (L - 1); }
+}
@@ -0,0 +1,155 @@
+/******************************************************************************
+ *  Compilation:   javac GridUnionFind.java
+ *  Execution:     none
+ *  Dependencies:  PercolationMetrics.java
+ *
+ *  Union-find data type tuned for the percolation grid
+ *
+ *  Weighted quick-union (union by size) with path halving, packed into a single
+ *  int array: a non-negative entry is the parent of the site, a negative entry
+ *  marks a root and stores, bitwise complemented, ((size - 1) << 2) | flags, where
+ *  flags are two bits the caller attaches to a component (Percolation's TOP and
+ *  BOTTOM) and a merged component gets the flags of both. A fresh site is -1: a
+ *  component of size 1 without flags. Two bits go to the flags, so at most 2^29
+ *  sites fit. There are no bounds checks; callers (Percolation) validate indices
+ *  before calling in.
+ *
+ *  Constructor: 	GridUnionFind(int n) init n sites, each in its own component
+ *	Method:		find(int p) root of the component containing p
+ *			union(int p, int q) merge the components of p and q
+ *			connected(int p, int q) check if p and q are in the same component
+ *			size(int p) number of sites in the component containing p
+ *			linkRoots(int rootP, int rootQ) / sizeOfRoot(int root) the same on known roots
+ *			flagsOfRoot(int root) / addFlags(int root, int flags) flag bits of a component
+ *			reset() put every site back in its own component
+ ******************************************************************************/
+
+public class GridUnionFind {
+    /** most sites a GridUnionFind holds, as two bits of a root entry go to the flags */
+    public static final int MAX_SITES = 1 << 29;
+
+    private int[] parent; // parent[i] = parent of i, or ~(((component size - 1) << 2) | flags) if i is a root
+
+    /**
+     *   Create n sites, each one in its own component of size 1 without flags
+     *
+     *   @param n the number of sites
+     *   @throws IllegalArgumentException if n < 0 or n > MAX_SITES
+     */
+    public GridUnionFind(int n) {
+        if (n < 0) throw new IllegalArgumentException("n is negative, couldn't init union-find.");
+        if (n > MAX_SITES) throw new IllegalArgumentException("n is more than " + MAX_SITES + ", couldn't init union-find.");
+        this.parent = new int[n];
+        java.util.Arrays.fill(this.parent, -1);
+    }
+
+    /**
+     *   find the root of the component containing site p, halving the path on the way
+     *
+     *   @param p index of the site (0 <= p < n)
+     *   @return root of the component containing p
+     */
+    public int find(int p) {
+        int[] parent = this.parent;
+        int steps = 0; // parent links followed, only counted with PercolationMetrics on
+        while (parent[p] >= 0) {
+            int grand = parent[parent[p]];
+            if (grand >= 0) { // path halving: point p at its grandparent
+                parent[p] = grand;
+                if (PercolationMetrics.ENABLED) steps += 2;
+            } else { // parent of p is the root
+                if (PercolationMetrics.ENABLED) PercolationMetrics.find(steps + 1);
+                return parent[p];
+            }
+            p = grand;
+        }
+        if (PercolationMetrics.ENABLED) PercolationMetrics.find(steps);
+        return p;
+    }
+
+    /**
+     *   merge the components containing sites p and q, linking the smaller root under the larger one;
+     *   the merged component has the flags of both
+     *
+     *   @param p index of one site
+     *   @param q index of the other site
+     *   @return root of the merged component
+     */
+    public int union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return rootP;
+        return linkRoots(rootP, rootQ);
+    }
+
+    /**
+     *   merge the components whose roots are rootP and rootQ, for callers that already
+     *   found both roots; no find() is run, and the merged component has the flags of both
+     *
+     *   @param rootP root of one component
+     *   @param rootQ root of another component (rootQ != rootP)
+     *   @return root of the merged component
+     */
+    public int linkRoots(int rootP, int rootQ) {
+        int[] parent = this.parent;
+        int p = ~parent[rootP], q = ~parent[rootQ]; // ((size - 1) << 2) | flags
+        if (p < q) { // link under the larger component
+            int tmp = rootP;
+            rootP = rootQ;
+            rootQ = tmp;
+        }
+        // sizes a and b are stored as a - 1 and b - 1, and (a - 1) + (b - 1) + 1 = (a + b) - 1
+        parent[rootP] = ~((((p >>> 2) + (q >>> 2) + 1) << 2) | ((p | q) & 3));
+        parent[rootQ] = rootP;
+        return rootP;
+    }
+
+    /**
+     *   check if sites p and q are in the same component
+     *
+     *   @return true if p and q are connected; false otherwise
+     */
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    /**
+     *   @return number of sites in the component containing site p
+     */
+    public int size(int p) {
+        return sizeOfRoot(find(p));
+    }
+
+    /**
+     *   @param root root of a component
+     *   @return number of sites in the component, without a find()
+     */
+    public int sizeOfRoot(int root) {
+        return (~this.parent[root] >>> 2) + 1;
+    }
+
+    /**
+     *   @param root root of a component
+     *   @return the two flag bits of the component
+     */
+    public int flagsOfRoot(int root) {
+        return ~this.parent[root] & 3;
+    }
+
+    /**
+     *   set flag bits on a component; bits already set stay set
+     *
+     *   @param root root of a component
+     *   @param flags bits to set, within 0..3
+     */
+    public void addFlags(int root, int flags) {
+        this.parent[root] &= ~flags; // the entry is complemented, so setting a flag clears its bit
+    }
+
+    /**
+     *   put every site back in its own component of size 1 without flags, reusing the array
+     */
+    public void reset() {
+        java.util.Arrays.fill(this.parent, -1);
+    }
+}
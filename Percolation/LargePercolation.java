@@ -0,0 +1,226 @@
+/******************************************************************************
+ *  Compilation:   javac LargePercolation.java
+ *  Execution:     java LargePercolation N [file]
+ *  Dependencies:  OffHeapLongArray.java StdOut.java
+ *
+ *  Data Type "LargePercolation" for percolation systems with billions of sites
+ *
+ *  Same model as Percolation, but every index is a long and the state lives off
+ *  the Java heap (direct memory, or a memory-mapped file), so N is not limited
+ *  by int indexing of N*N nor by the heap size, and the GC never scans it.
+ *
+ *  One long per site encodes the union-find, chosen so that a zeroed buffer is
+ *  an N*N grid of blocked singleton sites without any initialization pass:
+ *      value > 0   parent of the site is (value - 1)
+ *      value <= 0  the site is a root, -value = ((size - 1) << 2) | TOP/BOTTOM bits
+ *  Open state is one bit per site in a second array.
+ *
+ *  Constructor: 	LargePercolation(int N) grid in direct memory
+ *			LargePercolation(int N, Path file) grid in a memory-mapped file
+ *	Method:		open(int i, int j) open site(row,column)
+ *			isOpen(int i, int j) check if site(row,column) is open
+ *			isFull(int i, int j) check if site(row,column) is full
+ *			percolates() check if the grid percolates
+ *			numberOfOpenSites() number of open sites
+ ******************************************************************************/
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class LargePercolation {
+    private static final long TOP = 1; // component contains a site on the first row
+    private static final long BOTTOM = 2; // component contains a site on the last row
+
+    private final int N; // grid length
+    private final long sites; // N*N
+    private final OffHeapLongArray grid; // union-find, encoded as described above
+    private final OffHeapLongArray siteState; // bit i = block(0)/open(1) state of site i
+    private boolean percolated; // set once any component touches both top and bottom rows
+    private long openSites; // number of open sites
+
+    /**
+     *   Create N-by-N grid in direct memory with all sites blocked
+     *
+     *   @param N the number of sides in grid
+     *   @throws IllegalArgumentException if N ≤ 0
+     */
+    public LargePercolation(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a grid.");
+        this.N = N;
+        this.sites = (long) N * N;
+        this.grid = new OffHeapLongArray(this.sites);
+        this.siteState = new OffHeapLongArray((this.sites + 63) >>> 6);
+    }
+
+    /**
+     *   Create N-by-N grid in a memory-mapped file with all sites blocked; the file must not
+     *   exist yet, so the mapped regions start zeroed
+     *
+     *   @param N the number of sides in grid
+     *   @param file path of the new backing file
+     *   @throws IllegalArgumentException if N ≤ 0
+     *   @throws IOException if the file can't be created or mapped
+     */
+    public LargePercolation(int N, Path file) throws IOException {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a grid.");
+        this.N = N;
+        this.sites = (long) N * N;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.grid = new OffHeapLongArray(channel, 0, this.sites);
+            this.siteState = new OffHeapLongArray(channel, this.sites << 3, (this.sites + 63) >>> 6);
+        }
+    }
+
+    /**
+     *   open site (row i, column j) if it is not open already
+     *
+     *	 @param i row index of the site (1 <= i <= N)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public void open(int i, int j) {
+        validate(i, j);
+        long index = index(i, j);
+        if (isOpenSite(index)) return;
+        this.siteState.set(index >>> 6, this.siteState.get(index >>> 6) | (1L << index));
+        this.openSites++;
+        long state = 0;
+        if (i == 1) state |= TOP;
+        if (i == this.N) state |= BOTTOM;
+        if (i > 1 && isOpenSite(index - this.N))
+            state |= union(index - this.N, index);
+        if (i < this.N && isOpenSite(index + this.N))
+            state |= union(index + this.N, index);
+        if (j > 1 && isOpenSite(index - 1))
+            state |= union(index - 1, index);
+        if (j < this.N && isOpenSite(index + 1))
+            state |= union(index + 1, index);
+        // the merged component inherits the bits of every component it absorbed
+        long root = find(index);
+        this.grid.set(root, -((rootSize(root) - 1) << 2 | state));
+        if (state == (TOP | BOTTOM))
+            this.percolated = true;
+    }
+
+    /**
+     *   check if the site (row i, column j) is open?
+     *
+     *	 @param i row index of the site (1 <= i <= N)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *	 @return TRUE if the site is open; FALSE if it's not
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public boolean isOpen(int i, int j) {
+        validate(i, j);
+        return isOpenSite(index(i, j));
+    }
+
+    /**
+     *   check if the site (row i, column j) is full?
+     *
+     *	 @param i row index of the site (1 <= i <= N)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *	 @return TRUE if the site is full; FALSE if it's not
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public boolean isFull(int i, int j) {
+        validate(i, j);
+        return (rootState(find(index(i, j))) & TOP) != 0;
+    }
+
+    /**
+     *   check if the grid percolates?
+     *
+     *   @return true if it percolates; false otherwise
+     */
+    public boolean percolates() {
+        return this.percolated;
+    }
+
+    /**
+     *   @return number of open sites
+     */
+    public long numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    // root of the component containing site p, with path halving
+    private long find(long p) {
+        long v = this.grid.get(p);
+        while (v > 0) {
+            long parent = v - 1;
+            long grand = this.grid.get(parent);
+            if (grand <= 0) return parent; // parent is the root
+            this.grid.set(p, grand); // point p at its grandparent (grand already encodes parent + 1)
+            p = grand - 1;
+            v = this.grid.get(p);
+        }
+        return p;
+    }
+
+    // union open neighbor with site, and return the state bits the neighbor's component had
+    private long union(long neighbor, long site) {
+        long rootP = find(neighbor);
+        long rootQ = find(site);
+        long state = rootState(rootP);
+        if (rootP == rootQ) return state;
+        long sizeP = rootSize(rootP), sizeQ = rootSize(rootQ);
+        if (sizeP < sizeQ) { // link the smaller root under the larger one
+            long tmp = rootP;
+            rootP = rootQ;
+            rootQ = tmp;
+        }
+        long merged = rootState(rootP) | rootState(rootQ);
+        this.grid.set(rootQ, rootP + 1);
+        this.grid.set(rootP, -((sizeP + sizeQ - 1) << 2 | merged));
+        return state;
+    }
+
+    private long rootSize(long root) {
+        return ((-this.grid.get(root)) >>> 2) + 1;
+    }
+
+    private long rootState(long root) {
+        return (-this.grid.get(root)) & (TOP | BOTTOM);
+    }
+
+    private boolean isOpenSite(long index) {
+        return (this.siteState.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    // validate if site(i,j) is a valid site, and throw IndexOutOfBoundsException if it's not
+    private void validate(int i, int j) {
+        if ((i < 1 || i > this.N) || (j < 1 || j > this.N))
+            throw new IndexOutOfBoundsException("site(" + i + "," + j + ") is not between (1,1) and (" + this.N + "," + this.N + ")");
+    }
+
+    // convert index of 2d array to 1d array, in long so N*N can exceed Integer.MAX_VALUE
+    private long index(int row, int column) {
+        return (long) this.N * (row - 1) + (column - 1);
+    }
+
+    /**
+     *   open random sites till the grid percolates, and print the fraction of open sites
+     *
+     *   @param args-> N: numbers of the side of grid
+     *   			 file: (optional) new file to map the grid into
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            StdOut.println("Usage: java LargePercolation N [file]");
+            return;
+        }
+        int N = Integer.parseInt(args[0]);
+        LargePercolation percolation = args.length > 1 ? new LargePercolation(N, Paths.get(args[1])) : new LargePercolation(N);
+        SplittableRandom random = new SplittableRandom();
+        while (!percolation.percolates())
+            percolation.open(random.nextInt(1, N + 1), random.nextInt(1, N + 1));
+        StdOut.println((double) percolation.numberOfOpenSites() / ((double) N * N));
+    }
+}
@@ -0,0 +1,46 @@
+/******************************************************************************
+ *  Compilation:   javac Lattice.java
+ *  Execution:     none
+ *  Dependencies:  none
+ *
+ *  Topology of a percolation system for LatticePercolation
+ *
+ *  Sites are numbered 0..sites()-1. A lattice lists the neighbors of a site into
+ *  a caller-owned int array, so walking the neighborhood allocates nothing, and
+ *  tells which sites belong to the top and bottom boundaries.
+ *
+ *  Implementations: SquareLattice (4 neighbors), MooreLattice (8 neighbors),
+ *                   TriangularLattice (6), HexagonalLattice (3), CubicLattice (6, 3D)
+ ******************************************************************************/
+
+public interface Lattice {
+
+    /**
+     *   @return number of sites
+     */
+    int sites();
+
+    /**
+     *   @return largest number of neighbors of any site, the length neighbors() needs
+     */
+    int maxDegree();
+
+    /**
+     *   write the neighbors of site into out[0..count)
+     *
+     *   @param site index of the site (0 <= site < sites())
+     *   @param out array of length at least maxDegree()
+     *   @return number of neighbors written
+     */
+    int neighbors(int site, int[] out);
+
+    /**
+     *   @return true if site is on the top boundary
+     */
+    boolean isTop(int site);
+
+    /**
+     *   @return true if site is on the bottom boundary
+     */
+    boolean isBottom(int site);
+}
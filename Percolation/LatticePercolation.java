@@ -0,0 +1,238 @@
+/******************************************************************************
+ *  Compilation:   javac LatticePercolation.java
+ *  Execution:     java LatticePercolation lattice L [bond] [seed]
+ *  			   	lattice: square, moore, triangular, hexagonal or cubic; L: side length
+ *  			   	bond: open bonds instead of sites; seed: RNG seed
+ *  Dependencies:  Lattice.java GridUnionFind.java StdOut.java
+ *
+ *  Data Type "LatticePercolation" for percolation on any Lattice
+ *
+ *  The same engine as Percolation (one GridUnionFind, TOP/BOTTOM flags kept in
+ *  its root entries, open state in a long[] bitset), with the neighborhood and the top and
+ *  bottom boundaries taken from a Lattice. Supports site percolation, where
+ *  open(site) joins the site to its open neighbors, and bond percolation, where
+ *  openBond(p, q) joins exactly the two ends of one bond. Use one of the two
+ *  modes per grid; reset() clears the grid for another experiment.
+ *
+ *  Constructor: 	LatticePercolation(Lattice lattice) init a grid with all sites blocked
+ *	Method:		open(int site) open site and join it to its open neighbors
+ *			openBond(int p, int q) open the bond between neighbors p and q
+ *			isOpen(int site) check if site is open (site mode) or touched by an open bond (bond mode)
+ *			isFull(int site) check if site is connected to the top boundary
+ *			percolates() check if the top boundary is connected to the bottom boundary
+ *			numberOfOpenSites() number of open sites
+ *			reset() block all sites again
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class LatticePercolation {
+    private static final int TOP = 1; // component contains a site on the top boundary, a flag of its root
+    private static final int BOTTOM = 2; // component contains a site on the bottom boundary, a flag of its root
+
+    private final Lattice lattice; // topology of the grid
+    private final GridUnionFind grid; // components of open sites
+    private final int sites; // number of sites of the lattice
+    private final long[] siteState; // bit i = block(0)/open(1) state of site i
+    private final int[] neighbors; // scratch array for the lattice's neighbor walk
+    private boolean percolated; // set once any component touches both boundaries
+    private int openSites; // number of open sites
+
+    /**
+     *   Create a grid on the lattice with all sites blocked
+     *
+     *   @param lattice topology of the grid
+     *   @throws NullPointerException if lattice is null
+     *   @throws IllegalArgumentException if the lattice has more than 2^29 (GridUnionFind.MAX_SITES) sites
+     */
+    public LatticePercolation(Lattice lattice) {
+        if (lattice == null) throw new NullPointerException("Lattice is null.");
+        int n = lattice.sites();
+        this.lattice = lattice;
+        this.sites = n;
+        this.grid = new GridUnionFind(n);
+        this.siteState = new long[(n + 63) >>> 6];
+        this.neighbors = new int[lattice.maxDegree()];
+    }
+
+    /**
+     *   open site if it is not open already, and join it to its open neighbors (site percolation)
+     *
+     *   @param site index of the site (0 <= site < lattice.sites())
+     *   @throws IndexOutOfBoundsException if site is outside its prescribed range.
+     */
+    public void open(int site) {
+        validate(site);
+        if (!markOpen(site)) return;
+        int root = site; // the new site starts as its own component, the root is tracked from there
+        int[] neighbors = this.neighbors;
+        int degree = this.lattice.neighbors(site, neighbors);
+        for (int k = 0; k < degree; k++)
+            if (isOpenSite(neighbors[k]))
+                root = unionSite(neighbors[k], root);
+        checkPercolated(root);
+    }
+
+    /**
+     *   open the bond between neighboring sites p and q (bond percolation); both ends count as open
+     *
+     *   @param p index of one end
+     *   @param q index of the other end
+     *   @throws IndexOutOfBoundsException if p or q is outside its prescribed range.
+     *   @throws IllegalArgumentException if p and q are not neighbors on the lattice
+     */
+    public void openBond(int p, int q) {
+        validate(p);
+        validate(q);
+        int[] neighbors = this.neighbors;
+        int degree = this.lattice.neighbors(p, neighbors);
+        boolean adjacent = false;
+        for (int k = 0; k < degree && !adjacent; k++)
+            adjacent = neighbors[k] == q;
+        if (!adjacent) throw new IllegalArgumentException("site " + p + " and site " + q + " are not neighbors.");
+        markOpen(p);
+        markOpen(q);
+        checkPercolated(unionSite(p, this.grid.find(q)));
+    }
+
+    // mark site open and give it the flags of the boundaries it is on; return true if it was blocked
+    private boolean markOpen(int site) {
+        if (isOpenSite(site)) return false;
+        this.siteState[site >>> 6] |= 1L << site;
+        this.openSites++;
+        int state = 0;
+        if (this.lattice.isTop(site)) state |= TOP;
+        if (this.lattice.isBottom(site)) state |= BOTTOM;
+        this.grid.addFlags(site, state); // a blocked site is still its own root
+        return true;
+    }
+
+    // record that the grid percolates if the component whose root is root touches both boundaries
+    private void checkPercolated(int root) {
+        if (this.grid.flagsOfRoot(root) == (TOP | BOTTOM))
+            this.percolated = true;
+    }
+
+    // union open neighbor with the component whose root is siteRoot, and return the root of the merged component
+    private int unionSite(int neighbor, int siteRoot) {
+        int neighborRoot = this.grid.find(neighbor);
+        if (neighborRoot == siteRoot) return siteRoot;
+        return this.grid.linkRoots(neighborRoot, siteRoot);
+    }
+
+    private boolean isOpenSite(int site) {
+        return (this.siteState[site >>> 6] & (1L << site)) != 0;
+    }
+
+    /**
+     *   @param site index of the site (0 <= site < lattice.sites())
+     *   @return TRUE if the site is open; FALSE if it's not
+     *   @throws IndexOutOfBoundsException if site is outside its prescribed range.
+     */
+    public boolean isOpen(int site) {
+        validate(site);
+        return isOpenSite(site);
+    }
+
+    /**
+     *   @param site index of the site (0 <= site < lattice.sites())
+     *   @return TRUE if the site is connected to the top boundary; FALSE if it's not
+     *   @throws IndexOutOfBoundsException if site is outside its prescribed range.
+     */
+    public boolean isFull(int site) {
+        validate(site);
+        return (this.grid.flagsOfRoot(this.grid.find(site)) & TOP) != 0;
+    }
+
+    /**
+     *   @return true if the top boundary is connected to the bottom boundary; false otherwise
+     */
+    public boolean percolates() {
+        return this.percolated;
+    }
+
+    /**
+     *   @return number of open sites
+     */
+    public int numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    /**
+     *   block all sites (and bonds) again, reusing the grid's memory
+     */
+    public void reset() {
+        this.grid.reset();
+        java.util.Arrays.fill(this.siteState, 0L);
+        this.percolated = false;
+        this.openSites = 0;
+    }
+
+    // validate if site is a valid site, and throw IndexOutOfBoundsException if it's not
+    private void validate(int site) {
+        if (site < 0 || site >= this.sites)
+            throw new IndexOutOfBoundsException("site " + site + " is not between 0 and " + (this.sites - 1));
+    }
+
+    /**
+     *   open random sites (or bonds) of a lattice till it percolates, and print the fraction opened
+     *
+     *   @param args-> lattice: square, moore, triangular, hexagonal or cubic
+     *   			 L: side length of the lattice
+     *   			 bond: (optional) open bonds instead of sites
+     *   			 seed: (optional) RNG seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            StdOut.println("Usage: java LatticePercolation lattice L [bond] [seed]");
+            return;
+        }
+        int L = Integer.parseInt(args[1]);
+        Lattice lattice;
+        if (args[0].equals("square")) lattice = new SquareLattice(L);
+        else if (args[0].equals("moore")) lattice = new MooreLattice(L);
+        else if (args[0].equals("triangular")) lattice = new TriangularLattice(L);
+        else if (args[0].equals("hexagonal")) lattice = new HexagonalLattice(L);
+        else if (args[0].equals("cubic")) lattice = new CubicLattice(L);
+        else throw new IllegalArgumentException("Unknown lattice " + args[0]);
+        boolean bond = args.length >= 3 && args[2].equals("bond");
+        if (bond && (long) lattice.sites() * lattice.maxDegree() > Integer.MAX_VALUE) // checked before allocating the grid
+            throw new IllegalArgumentException("L is too large to number the bonds with an int.");
+        int seedArg = bond ? 3 : 2;
+        SplittableRandom random = args.length > seedArg ? new SplittableRandom(Long.parseLong(args[seedArg])) : new SplittableRandom();
+        LatticePercolation percolation = new LatticePercolation(lattice);
+        int n = lattice.sites();
+        int[] items; // sites, or bonds encoded as p * maxDegree + k for the k-th neighbor of p
+        int count = 0;
+        if (bond) {
+            int[] neighbors = new int[lattice.maxDegree()];
+            items = new int[n * lattice.maxDegree()];
+            for (int p = 0; p < n; p++) {
+                int degree = lattice.neighbors(p, neighbors);
+                for (int k = 0; k < degree; k++)
+                    if (neighbors[k] > p) items[count++] = p * lattice.maxDegree() + k;
+            }
+        } else {
+            items = new int[n];
+            for (int p = 0; p < n; p++)
+                items[count++] = p;
+        }
+        int[] neighbors = new int[lattice.maxDegree()];
+        int opened = 0;
+        while (!percolation.percolates()) {
+            // Fisher-Yates step: pick the next item uniformly among the unopened ones
+            int j = opened + random.nextInt(count - opened);
+            int item = items[j];
+            items[j] = items[opened];
+            items[opened++] = item;
+            if (bond) {
+                int p = item / lattice.maxDegree();
+                lattice.neighbors(p, neighbors);
+                percolation.openBond(p, neighbors[item - p * lattice.maxDegree()]);
+            } else
+                percolation.open(item);
+        }
+        StdOut.println((double) opened / count);
+    }
+}
@@ -0,0 +1,56 @@
+/******************************************************************************
+ *  Compilation:   javac MooreLattice.java
+ *  Execution:     none
+ *  Dependencies:  Lattice.java
+ *
+ *  N-by-N square lattice with 8 neighbors (Moore neighborhood: the 4 sides and
+ *  the 4 diagonals), sites in row-major order.
+ ******************************************************************************/
+
+public class MooreLattice implements Lattice {
+    private final int N; // grid length
+
+    /**
+     *   @param N the number of sides in grid
+     *   @throws IllegalArgumentException if N ≤ 0 or N*N overflows an int
+     */
+    public MooreLattice(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a lattice.");
+        if ((long) N * N > Integer.MAX_VALUE) throw new IllegalArgumentException("N*N sites don't fit in an int index.");
+        this.N = N;
+    }
+
+    /**
+     *   @return index of the site at 0-based (row, column)
+     */
+    public int site(int row, int column) {
+        return row * N + column;
+    }
+
+    public int sites() { return N * N; }
+
+    public int maxDegree() { return 8; }
+
+    public int neighbors(int site, int[] out) {
+        int row = site / N, column = site - row * N;
+        boolean up = row > 0, down = row < N - 1, left = column > 0, right = column < N - 1;
+        int count = 0;
+        if (up) {
+            out[count++] = site - N;
+            if (left) out[count++] = site - N - 1;
+            if (right) out[count++] = site - N + 1;
+        }
+        if (down) {
+            out[count++] = site + N;
+            if (left) out[count++] = site + N - 1;
+            if (right) out[count++] = site + N + 1;
+        }
+        if (left) out[count++] = site - 1;
+        if (right) out[count++] = site + 1;
+        return count;
+    }
+
+    public boolean isTop(int site) { return site < N; }
+
+    public boolean isBottom(int site) { return site >= N * (N - 1); }
+}
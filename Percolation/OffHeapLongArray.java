@@ -0,0 +1,113 @@
+/******************************************************************************
+ *  Compilation:   javac OffHeapLongArray.java
+ *  Execution:     none
+ *  Dependencies:  none
+ *
+ *  Long-indexed array of longs stored outside the Java heap
+ *
+ *  A ByteBuffer is indexed by int, so the array is split into chunks of 2^27
+ *  longs (1 GiB) each. Chunks are either direct buffers or regions of a
+ *  memory-mapped file; both start zeroed, so callers should pick an encoding
+ *  where 0 is the initial value of an element.
+ *
+ *  Constructor: 	OffHeapLongArray(long length) direct (off-heap) memory
+ *			OffHeapLongArray(FileChannel channel, long offset, long length) mapped file region
+ *	Method:		get(long i) element i
+ *			set(long i, long value) assign element i
+ *			length() number of elements
+ *			clear() set every element to 0
+ ******************************************************************************/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+public class OffHeapLongArray {
+    private static final int CHUNK_SHIFT = 27; // 2^27 longs = 1 GiB per chunk
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final long length; // number of elements
+    private final LongBuffer[] chunks; // chunks[c] holds elements [c << CHUNK_SHIFT, (c + 1) << CHUNK_SHIFT)
+
+    /**
+     *   Create an array of length zeroed longs in direct memory;
+     *   the JVM caps direct memory with -XX:MaxDirectMemorySize
+     *
+     *   @param length number of elements
+     *   @throws IllegalArgumentException if length < 0
+     */
+    public OffHeapLongArray(long length) {
+        this.length = checkLength(length);
+        this.chunks = new LongBuffer[chunkCount(length)];
+        for (int c = 0; c < this.chunks.length; c++)
+            this.chunks[c] = ByteBuffer.allocateDirect(chunkLength(c) << 3).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    /**
+     *   Create an array of length longs backed by a region of a memory-mapped file; the file
+     *   grows as needed and new regions read as zero. The mapping stays valid after the
+     *   channel is closed.
+     *
+     *   @param channel file channel opened for reading and writing
+     *   @param offset byte offset of the region in the file
+     *   @param length number of elements
+     *   @throws IllegalArgumentException if length < 0
+     *   @throws IOException if the file can't be mapped
+     */
+    public OffHeapLongArray(FileChannel channel, long offset, long length) throws IOException {
+        this.length = checkLength(length);
+        this.chunks = new LongBuffer[chunkCount(length)];
+        for (int c = 0; c < this.chunks.length; c++) {
+            long position = offset + ((long) c << (CHUNK_SHIFT + 3));
+            this.chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) chunkLength(c) << 3)
+                                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    private static long checkLength(long length) {
+        if (length < 0) throw new IllegalArgumentException("length is negative, couldn't init array.");
+        return length;
+    }
+
+    private static int chunkCount(long length) {
+        return (int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    // number of elements in chunk c, only the last chunk can be partial
+    private int chunkLength(int c) {
+        return (int) Math.min(1L << CHUNK_SHIFT, this.length - ((long) c << CHUNK_SHIFT));
+    }
+
+    /**
+     *   @param i index of the element (0 <= i < length)
+     *   @return element i
+     */
+    public long get(long i) {
+        return this.chunks[(int) (i >>> CHUNK_SHIFT)].get((int) (i & CHUNK_MASK));
+    }
+
+    /**
+     *   @param i index of the element (0 <= i < length)
+     *   @param value new value of element i
+     */
+    public void set(long i, long value) {
+        this.chunks[(int) (i >>> CHUNK_SHIFT)].put((int) (i & CHUNK_MASK), value);
+    }
+
+    /**
+     *   @return number of elements
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     *   set every element back to 0
+     */
+    public void clear() {
+        for (LongBuffer chunk : this.chunks)
+            for (int i = 0; i < chunk.capacity(); i++)
+                chunk.put(i, 0L);
+    }
+}
@@ -5,133 +5,201 @@
  *
  *  Compilation:   javac Percolation.java
  *  Execution:     java Percolation
- *  Dependencies:  WeightedQuickUnionUF.java
+ *  Dependencies:  GridUnionFind.java PercolationMetrics.java
  *  
  *  Data Type "Percolation" for modeling percolation systems
  *  
  *  Constructor: 	Percolation(int N) init a N*N grid model
+ *			Percolation(int M, int N) init a M*N grid model (M rows, N columns)
  *	Method:		open(int i, int j) open site(row,column)
  *			isOpen(int i, int j) check if site(row,column) is open
  *			isFull(int i, int j) check if site(row,column) is full
  *			percolates() check if the grid percolates
+ *			numberOfOpenSites() number of open sites
+ *			numberOfOpenSites(int i) number of open sites in row i
+ *			numberOfClusters() number of clusters of open sites
+ *			largestClusterSize() number of sites in the largest cluster
+ *			clusterSizeSecondMoment() sum of squared cluster sizes
+ *			reset() block all sites again, reusing the grid's memory
  ******************************************************************************/
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
-
 public class Percolation {
-    private int N; // grid length
-    private WeightedQuickUnionUF grid;  // WeightedQuickUnionUF object as N*N grid
-    private WeightedQuickUnionUF bwUF;  // WeightedQuickUnionUF object as N*N grid for backwash bug
-    private boolean[] siteState;  // siteState[i] = block(false)/open(true) state of site i
-    private int vTop; // virtual top
-    private int vBot; // virtual bot
+    private int M; // number of rows
+    private int N; // grid length (number of columns)
+    private GridUnionFind grid;  // GridUnionFind object as N*N grid
+    private long[] siteState;  // bit i = block(0)/open(1) state of site i, 64 sites per word
+    private boolean percolated; // set once any component touches both top and bottom rows
+    private int openSites; // number of open sites
+    private int percolationOpenCount; // number of open sites when the grid first percolated, 0 if it hasn't
+    private int clusters; // number of components of open sites
+    private int largestCluster; // number of sites in the largest component of open sites
+    private long clusterSizeSquares; // sum over components of open sites of size^2
+    
+    private static final int TOP = 1; // component contains a site on the first row, a flag of its root
+    private static final int BOTTOM = 2; // component contains a site on the last row, a flag of its root
     
     
     /**
-     *   Create N-by-N grid into 1-dimension array with WeightedQuickUnionUF object, and assign all sites blocked in N*N-size array
+     *   Create N-by-N grid into 1-dimension array with GridUnionFind object, and assign all sites blocked in N*N-size array.
+     *   Instead of virtual top/bottom sites, every root keeps TOP/BOTTOM flags for its component in its
+     *   union-find entry, so a single union-find answers both isFull() and percolates() without backwash.
      *   
      *   @param N the number of sides in grid 
      *   @throws IllegalArgumentException if N ≤ 0
      */
     public Percolation (int N) {
-        if(N > 0) { 
+        this(N, N);
+    }
+    
+    /**
+     *   Create M-by-N grid (M rows, N columns) in the same way; the top is the first row and the bottom is row M
+     *   
+     *   @param M the number of rows in grid
+     *   @param N the number of columns in grid
+     *   @throws IllegalArgumentException if M ≤ 0 or N ≤ 0, or M*N > 2^29 (GridUnionFind.MAX_SITES)
+     */
+    public Percolation (int M, int N) {
+        if(M > 0 && N > 0) { 
+        	if ((long) M * N > GridUnionFind.MAX_SITES)
+        		throw new java.lang.IllegalArgumentException("M*N sites don't fit in the union-find, use LargePercolation.");
+        	this.M = M;
         	this.N = N;
-        	this.vTop = 0;
-        	this.vBot = N * N + 1;
-        	this.grid = new WeightedQuickUnionUF(N * N + 2); //Data Structure:  1(virtual top) + N*N grid + 1(virtual bot)
-        	this.bwUF = new WeightedQuickUnionUF(N * N + 2);
-        	this.siteState = new boolean[N * N]; //init memory for site state in N*N sites
+        	this.grid = new GridUnionFind(M * N); //Data Structure: M*N grid, no virtual sites
+        	this.siteState = new long[(int) (((long) M * N + 63) >>> 6)]; //init memory for site state in M*N bits
         } else 
-            throw new java.lang.IllegalArgumentException("N is less than 1, couldn't init a grid.");
+            throw new java.lang.IllegalArgumentException("M or N is less than 1, couldn't init a grid.");
     }
         
      /**
      *   open site (row i, column j) if it is not open already
      *
-     *	 @param i row index of the site (1 <= i <= N)
-     *	 @param	j column index of the site (1 <= i <= N) 
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N) 
      *   @throws IndexOutOfBoundsException from validate() if any argument is outside its prescribed range.
      */
     public void open(int i, int j) {
     	validate(i, j);
-    	// open site if it's not open, and union with neighboring site
-    	if(!isOpen(i, j)){ //open site(i,j) if it isn't open.
-        	int siteIndex = twoToOneDimensionConverter(i, j) + 1;
-        	this.siteState[siteIndex - 1] = true; //open site
-    		if (i == 1)	{ //connect to virtual top if the site is on first row
-    			this.grid.union(this.vTop, siteIndex);
-    			this.bwUF.union(this.vTop, siteIndex);
-    		}
-    		if (i == this.N) //connect to virtual bot if the site is on last row
-    			this.grid.union(this.vBot, siteIndex);
-    		unionNeighborSites(i, j); 
+    	openSite(twoToOneDimensionConverter(i, j));
+    }
+    
+    // open site by its index in the M*N array (0 <= index < M*N) without validation, for trial drivers
+    // return true if the site was blocked and is now open; false if it was already open
+    boolean openSite(int index) {
+    	if (isOpenSite(index)) return false;
+    	this.siteState[index >>> 6] |= 1L << index; //open site (shift distance is taken mod 64)
+    	this.openSites++;
+    	if (PercolationMetrics.ENABLED) PercolationMetrics.open();
+    	this.clusters++;
+    	this.clusterSizeSquares++; // the site starts as a component of size 1
+    	if (this.largestCluster == 0) this.largestCluster = 1;
+    	int row = index / this.N; // 0-based row and column of the site
+    	int column = index - row * this.N;
+    	int state = 0;
+    	if (row == 0) //the site touches the top if it is on first row
+    		state |= TOP;
+    	if (row == this.M - 1) //the site touches the bottom if it is on last row
+    		state |= BOTTOM;
+    	this.grid.addFlags(index, state); // a blocked site is still its own root
+    	// the merged component inherits the flags of every component it absorbed
+    	int root = unionNeighborSites(index, row, column);
+    	state = this.grid.flagsOfRoot(root);
+    	if (state == (TOP | BOTTOM) && !this.percolated) {
+    		this.percolated = true;
+    		this.percolationOpenCount = this.openSites; // remember the exact opening that made it percolate
     	}
+    	return true;
     }
     
-    // union neighboring sites
-    // 4 scenario: open top/left/right/bottom site
-    private void unionNeighborSites(int row, int column){
-    	int index = twoToOneDimensionConverter(row, column) + 1; // +1 for virtual top in the beginning
+    // union neighboring sites with the newly opened site, and return the root of its component
+    // 4 scenario: open top/left/right/bottom site (row and column are 0-based here)
+    private int unionNeighborSites(int index, int row, int column){
+    	int root = index; // the new site starts as its own component, the root is tracked from there
     	// scenario logic
     	// union top site(row-1,column) if site(row,column) have a top site which is open
-    	if(row - 1 >= 1 && isOpen(row - 1, column)) {
-    		this.grid.union(index - this.N, index); 
-    		this.bwUF.union(index - this.N, index); 
-    	}
+    	if(row > 0 && isOpenSite(index - this.N))
+    		root = unionSite(index - this.N, root);
     	// union bot site(row+1,column) if site(row,column) have a bot site which is open
-    	if(row + 1 <= this.N && isOpen(row + 1, column)) {
-			this.grid.union(index, index + N); 
-			this.bwUF.union(index, index + N); 
-    	}
+    	if(row < this.M - 1 && isOpenSite(index + this.N))
+    		root = unionSite(index + this.N, root);
     	// union left site(row,column-1) if site(row,column) have a left site which is open
-    	if(column - 1 >= 1 && isOpen(row, column - 1)) {
-			this.grid.union(index - 1, index);
-			this.bwUF.union(index - 1, index);
-    	}
-    	// union bot site(row,column+1) if site(row,column) have a right site which is open
-    	if(column + 1 <= N && isOpen(row, column + 1)) {
-			this.grid.union(index, index + 1);
-			this.bwUF.union(index, index + 1);
-    	}
+    	if(column > 0 && isOpenSite(index - 1))
+    		root = unionSite(index - 1, root);
+    	// union right site(row,column+1) if site(row,column) have a right site which is open
+    	if(column < this.N - 1 && isOpenSite(index + 1))
+    		root = unionSite(index + 1, root);
+    	return root;
+    }
+    
+    // check the open bit of site by its index in the M*N array
+    private boolean isOpenSite(int index) {
+    	return (this.siteState[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    // count open sites with index in [from, to) by popcount over the bit words
+    private int countOpenSites(int from, int to) {
+    	if (from >= to) return 0;
+    	int first = from >>> 6, last = (to - 1) >>> 6;
+    	long firstMask = -1L << from; // bits from..63 of the first word
+    	long lastMask = -1L >>> -to; // bits 0..(to-1) of the last word
+    	if (first == last)
+    		return Long.bitCount(this.siteState[first] & firstMask & lastMask);
+    	int count = Long.bitCount(this.siteState[first] & firstMask);
+    	for (int w = first + 1; w < last; w++)
+    		count += Long.bitCount(this.siteState[w]);
+    	return count + Long.bitCount(this.siteState[last] & lastMask);
+    }
+    
+    // union open neighbor with the component whose root is siteRoot, and return the root of the merged component
+    private int unionSite(int neighbor, int siteRoot){
+    	int neighborRoot = this.grid.find(neighbor);
+    	if (neighborRoot == siteRoot) return siteRoot;
+    	// merging sizes a and b adds (a+b)^2 - a^2 - b^2 to the sum of squares
+    	int a = this.grid.sizeOfRoot(neighborRoot), b = this.grid.sizeOfRoot(siteRoot);
+    	this.clusters--;
+    	if (PercolationMetrics.ENABLED) PercolationMetrics.union();
+    	this.clusterSizeSquares += 2L * a * b;
+    	this.largestCluster = Math.max(this.largestCluster, a + b);
+    	return this.grid.linkRoots(neighborRoot, siteRoot);
     }
     
      /**
      *   check if the site (row i, column j) is open?
      *   
-     *	 @param i row index of the site (1 <= i <= N)
-     *	 @param	j column index of the site (1 <= i <= N) 
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N) 
      *	 @return TRUE if the site is open; FALSE if it's not
      *   @throws IndexOutOfBoundsException from validate() if any argument is outside its prescribed range.
      */ 
     public boolean isOpen(int i, int j) {
     	validate(i, j);
     	int index = twoToOneDimensionConverter(i, j); 
-    	return this.siteState[index];
+    	return isOpenSite(index);
     }
     
      /**
      *   check if the site (row i, column j) is full?
      *   
-     *	 @param i row index of the site (1 <= i <= N)
-     *	 @param	j column index of the site (1 <= i <= N) 
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N) 
      *	 @return TRUE if the site is full; FALSE if it's not
      *   @throws IndexOutOfBoundsException from validate() if any argument is outside its prescribed range.
      */ 
     public boolean isFull(int i, int j) {
     	validate(i, j);
-    	int index = twoToOneDimensionConverter(i, j) + 1; //index in N*N+2 grid (include virtual top & virtual bot)
-    	return this.bwUF.connected(this.vTop, index); // check if the site is connected with virtual top (0 = virtual top)
+    	if (PercolationMetrics.ENABLED) PercolationMetrics.query();
+    	int index = twoToOneDimensionConverter(i, j);
+    	return (this.grid.flagsOfRoot(this.grid.find(index)) & TOP) != 0; // check if the site's component touches the top row
     }
         
     // validate if site(i,j) is a valid site, and throw IndexOutOfBoundsException if it's not
     private void validate(int i, int j){
-        if ( (i < 1 || i > this.N) || (j < 1 || j > this.N)) 
-            throw new IndexOutOfBoundsException("site(" + i + "," + j + ") is not between (1,1) and (" + this.N + "," + this.N + ")");  
+        if ( (i < 1 || i > this.M) || (j < 1 || j > this.N)) 
+            throw new IndexOutOfBoundsException("site(" + i + "," + j + ") is not between (1,1) and (" + this.M + "," + this.N + ")");  
     }
 
     // convert index of 2d array to 1d array 
     private int twoToOneDimensionConverter(int row, int column){
-    	// N*N grid(x,y) -> 1d array(i) in N*N size
-    	return (this.N * (row - 1) + (column - 1)); //eg. (1,1)->0, (1,2)->1, ..., (N,N)-> N^2-1
+    	// M*N grid(x,y) -> 1d array(i) in M*N size
+    	return (this.N * (row - 1) + (column - 1)); //eg. (1,1)->0, (1,2)->1, ..., (M,N)-> M*N-1
     }
         
     /**
@@ -140,7 +208,79 @@ public class Percolation {
     *   @return true if it percolates; false otherwise
     */ 
     public boolean percolates() {
-    	return this.grid.connected(vTop, vBot); //it percolates if virtual top(index = 0) is connected to virtual bot
+    	if (PercolationMetrics.ENABLED) PercolationMetrics.query();
+    	return this.percolated; //it percolates once a component touches both top and bottom rows
+    }
+    
+    /**
+    *   number of open sites in the grid
+    *   
+    *   @return number of open sites
+    */ 
+    public int numberOfOpenSites() {
+    	return this.openSites;
+    }
+    
+    /**
+    *   number of open sites in row i, counted by popcount over the row's bits
+    *   
+    *	 @param i row index (1 <= i <= M)
+    *   @return number of open sites in row i
+    *   @throws IndexOutOfBoundsException if i is outside its prescribed range.
+    */ 
+    public int numberOfOpenSites(int i) {
+    	validate(i, 1);
+    	int from = twoToOneDimensionConverter(i, 1);
+    	return countOpenSites(from, from + this.N);
+    }
+    
+    /**
+    *   block all sites again so the grid can be reused for another experiment;
+    *   the arrays are cleared in place, nothing is allocated
+    */ 
+    public void reset() {
+    	this.grid.reset();
+    	java.util.Arrays.fill(this.siteState, 0L);
+    	this.percolated = false;
+    	this.openSites = 0;
+    	this.percolationOpenCount = 0;
+    	this.clusters = 0;
+    	this.largestCluster = 0;
+    	this.clusterSizeSquares = 0;
+    }
+    
+    /**
+    *   number of clusters (components of open sites), kept up to date by open()
+    *   
+    *   @return number of clusters
+    */ 
+    public int numberOfClusters() {
+    	return this.clusters;
+    }
+    
+    /**
+    *   number of sites in the largest cluster, kept up to date by open()
+    *   
+    *   @return size of the largest cluster, 0 if no site is open
+    */ 
+    public int largestClusterSize() {
+    	return this.largestCluster;
+    }
+    
+    /**
+    *   second moment of the cluster sizes, kept up to date by open(); divided by
+    *   numberOfOpenSites() it is the mean size of the cluster containing a random open site
+    *   
+    *   @return sum of size^2 over all clusters
+    */ 
+    public long clusterSizeSecondMoment() {
+    	return this.clusterSizeSquares;
+    }
+    
+    // number of open sites when the grid first percolated, or 0 if it doesn't percolate yet;
+    // lets trial drivers open sites in batches and still get the exact threshold
+    int percolationOpenCount() {
+    	return this.percolationOpenCount;
     }
     
     /**
@@ -0,0 +1,164 @@
+/******************************************************************************
+ *  Compilation:   javac PercolationBatch.java
+ *  Execution:     none
+ *  Dependencies:  PercolationStats.java PercolationMetrics.java
+ *
+ *  K independent Monte Carlo experiments on small N-by-N grids at once
+ *
+ *  For small N a trial is short enough that per-trial overhead and the latency
+ *  of each union-find walk dominate. This engine keeps K grids in one
+ *  structure-of-arrays layout (one parent array, one state array and one
+ *  permutation array for all grids, grid g at offset g*N*N) and advances the
+ *  grids round-robin, one open per grid per round. The K find() walks of a
+ *  round are independent, so the CPU overlaps their memory accesses, and there
+ *  are no objects or virtual calls per grid.
+ *
+ *  Grid g of a run draws from the same RNG stream, in the same way, as
+ *  PercolationTrial does for the same trial, so the results are identical.
+ *
+ *  Constructor: 	PercolationBatch(int N, int K) init K grids of N*N sites
+ *	Method:		run(long seed, int first, double[] results, int offset, int count) run count <= K experiments
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+public class PercolationBatch {
+    private static final byte OPEN = 1; // site is open
+    private static final byte TOP = 2; // component contains a site on the first row
+    private static final byte BOTTOM = 4; // component contains a site on the last row
+
+    private final int N; // grid length
+    private final int K; // number of grids
+    private final int sites; // N*N, sites per grid
+    private final int[] parent; // parent[g*sites + i] = parent of site i of grid g, or -(component size) at a root
+    private final byte[] state; // state[g*sites + i] = OPEN bit of site i, plus TOP/BOTTOM bits if it is a root
+    private final int[] order; // order[g*sites + k] = k-th site opened in grid g
+    private final int[] opened; // opened[g] = number of open sites of grid g
+    private final int[] running; // running[0..active) = grids that haven't percolated yet
+    private final SplittableRandom[] random; // random[g] = RNG stream of grid g in the current run
+
+    /**
+     *   Create K grids of N-by-N sites
+     *
+     *   @param N the number of sides in each grid
+     *   @param K the number of grids
+     *   @throws IllegalArgumentException if N ≤ 0 or K ≤ 0, or K*N*N overflows an int
+     */
+    public PercolationBatch(int N, int K) {
+        if (N <= 0 || K <= 0) throw new IllegalArgumentException("Both N and K should be greater than 0 (exclusive)");
+        if ((long) K * N * N > Integer.MAX_VALUE) throw new IllegalArgumentException("K*N*N sites don't fit in an int index.");
+        this.N = N;
+        this.K = K;
+        this.sites = N * N;
+        this.parent = new int[K * sites];
+        this.state = new byte[K * sites];
+        this.order = new int[K * sites];
+        this.opened = new int[K];
+        this.running = new int[K];
+        this.random = new SplittableRandom[K];
+    }
+
+    /**
+     *   run experiments first, first+1, ..., first+count-1 of a seeded run, one per grid
+     *
+     *   @param seed seed of the RNG streams, as in PercolationStats
+     *   @param first index of the first experiment
+     *   @param results results[offset + g] receives the threshold of experiment first + g
+     *   @param offset position of the first result in results
+     *   @param count number of experiments (1 <= count <= K)
+     *   @throws IllegalArgumentException if count is outside its prescribed range
+     */
+    public void run(long seed, int first, double[] results, int offset, int count) {
+        if (count < 1 || count > K) throw new IllegalArgumentException("count should be between 1 and " + K);
+        int n = this.sites;
+        int[] parent = this.parent;
+        byte[] state = this.state;
+        int[] order = this.order;
+        int[] opened = this.opened;
+        java.util.Arrays.fill(parent, 0, count * n, -1);
+        java.util.Arrays.fill(state, 0, count * n, (byte) 0);
+        for (int g = 0; g < count; g++) {
+            int base = g * n;
+            for (int i = 0; i < n; i++)
+                order[base + i] = i;
+            opened[g] = 0;
+            this.random[g] = PercolationStats.trialStream(seed, first + g);
+        }
+        int[] grids = this.running;
+        int active = count; // grids[0..active) haven't percolated yet
+        for (int g = 0; g < count; g++)
+            grids[g] = g;
+        while (active > 0) {
+            for (int k = 0; k < active; ) {
+                int g = grids[k];
+                int base = g * n;
+                // Fisher-Yates step: pick the next site of grid g uniformly among the blocked ones
+                int o = opened[g];
+                int j = o + this.random[g].nextInt(n - o);
+                int site = order[base + j];
+                order[base + j] = order[base + o];
+                order[base + o] = site;
+                opened[g] = o + 1;
+                if (PercolationMetrics.ENABLED) PercolationMetrics.open();
+                if (openSite(base, site)) { // grid g percolates: record it and swap it out of the round
+                    results[offset + g] = (double) (o + 1) / n;
+                    grids[k] = grids[--active];
+                } else
+                    k++;
+            }
+        }
+    }
+
+    // open site of the grid at base, and return true if the grid percolates now
+    private boolean openSite(int base, int site) {
+        int N = this.N;
+        byte[] state = this.state;
+        int row = site / N, column = site - row * N;
+        byte bits = OPEN;
+        if (row == 0) bits |= TOP;
+        if (row == N - 1) bits |= BOTTOM;
+        state[base + site] = OPEN;
+        if (row > 0 && state[base + site - N] != 0) bits |= union(base, site - N, site);
+        if (row < N - 1 && state[base + site + N] != 0) bits |= union(base, site + N, site);
+        if (column > 0 && state[base + site - 1] != 0) bits |= union(base, site - 1, site);
+        if (column < N - 1 && state[base + site + 1] != 0) bits |= union(base, site + 1, site);
+        state[base + find(base, site)] = bits;
+        return (bits & (TOP | BOTTOM)) == (TOP | BOTTOM);
+    }
+
+    // root of site p of the grid at base, with path halving
+    private int find(int base, int p) {
+        int[] parent = this.parent;
+        int steps = 0; // parent links followed, only counted with PercolationMetrics on
+        while (parent[base + p] >= 0) {
+            int q = parent[base + p];
+            int grand = parent[base + q];
+            if (grand < 0) {
+                if (PercolationMetrics.ENABLED) PercolationMetrics.find(steps + 1);
+                return q;
+            }
+            parent[base + p] = grand;
+            if (PercolationMetrics.ENABLED) steps += 2;
+            p = grand;
+        }
+        if (PercolationMetrics.ENABLED) PercolationMetrics.find(steps);
+        return p;
+    }
+
+    // union open neighbor with site in the grid at base, and return the bits the neighbor's component had
+    private byte union(int base, int neighbor, int site) {
+        int[] parent = this.parent;
+        int rootP = find(base, neighbor);
+        int rootQ = find(base, site);
+        byte bits = this.state[base + rootP];
+        if (rootP == rootQ) return bits;
+        if (PercolationMetrics.ENABLED) PercolationMetrics.union();
+        if (parent[base + rootP] > parent[base + rootQ]) { // sizes are negated: link the smaller root under the larger
+            int tmp = rootP;
+            rootP = rootQ;
+            rootQ = tmp;
+        }
+        parent[base + rootP] += parent[base + rootQ];
+        parent[base + rootQ] = rootP;
+        return bits;
+    }
+}
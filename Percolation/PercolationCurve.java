@@ -0,0 +1,156 @@
+/**************************************************************************************
+ *  Compilation:   javac PercolationCurve.java
+ *  Execution:     java PercolationCurve N T [seed [points]]
+ *  			   	N: numbers of the side of grid; T: times of experiments
+ *  			   	seed: RNG seed; points: number of p values printed (default 20)
+ *  Dependencies:  Percolation.java PercolationStats.java StdOut.java
+ *
+ *  Newman-Ziff estimator of percolation observables as functions of p
+ *
+ *  Each trial opens all N*N sites once, in random order, and records after every
+ *  opening n whether the grid percolates, the size of the largest cluster, and the
+ *  sum of squared cluster sizes. Averaged over T trials these are the observables
+ *  Q(n) at a fixed number of open sites; the value at site vacancy probability p is
+ *  the binomial convolution
+ *
+ *      Q(p) = sum over n of C(N*N, n) p^n (1-p)^(N*N-n) Q(n)
+ *
+ *  so one O(N*N) pass per trial gives the whole curve instead of one threshold.
+ *
+ *  Constructor:   PercolationCurve(int N, int T, long seed) run T sweeps on an N-by-N grid
+ *  Method:        spanningProbability(double p) probability that the grid percolates
+ *                 largestClusterFraction(double p) mean fraction of sites in the largest cluster
+ *                 meanClusterSize(double p) mean size of the cluster containing a random open site
+ **************************************************************************************/
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class PercolationCurve {
+
+	private final int sites; // N*N
+	private final double[] spanning; // spanning[n] = fraction of trials that percolate with n open sites
+	private final double[] largest; // largest[n] = mean size of the largest cluster with n open sites
+	private final double[] meanSize; // meanSize[n] = mean of (sum of size^2) / n with n open sites
+
+	/**
+	 * run T sweeps over an N-by-N grid, each opening every site once in random order
+	 *
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param T time of experiments
+	 * @param seed seed of the RNG streams, trial t uses the same stream as in PercolationStats
+	 * @throws IllegalArgumentException if N or T <= 0, or N*N > 2^29 (GridUnionFind.MAX_SITES)
+	 */
+	public PercolationCurve(int N, int T, long seed) {
+		if (N <= 0 || T <= 0)
+			throw new IllegalArgumentException("Both N and T should be greater than 0 (exclusive)");
+		Percolation grid = new Percolation(N); // first, as it rejects an N too large for N*N int indices
+		sites = N * N;
+		spanning = new double[sites + 1];
+		largest = new double[sites + 1];
+		meanSize = new double[sites + 1];
+		long[] firstSpanning = new long[sites + 2]; // firstSpanning[n] = trials that first percolate at n open sites
+		int[] order = new int[sites];
+		for (int t = 0; t < T; t++) {
+			SplittableRandom random = PercolationStats.trialStream(seed, t);
+			grid.reset();
+			for (int i = 0; i < sites; i++)
+				order[i] = i;
+			for (int n = 1; n <= sites; n++) {
+				// Fisher-Yates step: pick the n-th site uniformly among the blocked ones
+				int j = n - 1 + random.nextInt(sites - n + 1);
+				int site = order[j];
+				order[j] = order[n - 1];
+				order[n - 1] = site;
+				grid.openSite(site);
+				largest[n] += grid.largestClusterSize();
+				meanSize[n] += (double) grid.clusterSizeSecondMoment() / n;
+			}
+			firstSpanning[grid.percolationOpenCount()]++;
+		}
+		long spanningTrials = 0; // once a grid percolates, it percolates with any more open sites
+		for (int n = 0; n <= sites; n++) {
+			spanningTrials += firstSpanning[n];
+			spanning[n] = (double) spanningTrials / T;
+			largest[n] /= T;
+			meanSize[n] /= T;
+		}
+	}
+
+	/**
+	 * @param p site vacancy probability (0 <= p <= 1)
+	 * @return probability that the grid percolates
+	 * @throws IllegalArgumentException if p is outside [0, 1]
+	 */
+	public double spanningProbability(double p) {
+		return convolve(spanning, p);
+	}
+
+	/**
+	 * @param p site vacancy probability (0 <= p <= 1)
+	 * @return mean fraction of all sites that belong to the largest cluster
+	 * @throws IllegalArgumentException if p is outside [0, 1]
+	 */
+	public double largestClusterFraction(double p) {
+		return convolve(largest, p) / sites;
+	}
+
+	/**
+	 * @param p site vacancy probability (0 <= p <= 1)
+	 * @return mean size of the cluster containing a randomly chosen open site
+	 * @throws IllegalArgumentException if p is outside [0, 1]
+	 */
+	public double meanClusterSize(double p) {
+		return convolve(meanSize, p);
+	}
+
+	// sum of C(M, n) p^n (1-p)^(M-n) Q(n), with the binomial weights built outwards from the mode
+	// by their ratios and normalized at the end, so nothing overflows or underflows near the mode
+	private double convolve(double[] q, double p) {
+		if (!(p >= 0 && p <= 1)) throw new IllegalArgumentException("p should be between 0 and 1");
+		int M = sites;
+		if (p == 0) return q[0];
+		if (p == 1) return q[M];
+		int mode = (int) Math.min(M, Math.floor((M + 1) * p));
+		double ratio = p / (1 - p);
+		double weight = 1, total = 1, sum = q[mode];
+		for (int n = mode + 1; n <= M && weight > 0; n++) {
+			weight *= ratio * (M - n + 1) / n;
+			total += weight;
+			sum += weight * q[n];
+		}
+		weight = 1;
+		for (int n = mode - 1; n >= 0 && weight > 0; n--) {
+			weight *= (n + 1) / (ratio * (M - n));
+			total += weight;
+			sum += weight * q[n];
+		}
+		return sum / total;
+	}
+
+	/**
+	 * takes command-line arguments N and T, runs T sweeps on an N-by-N grid, and prints
+	 * the spanning probability, largest cluster fraction and mean cluster size against p
+	 *
+	 * @param args-> N: numbers of the side of grid
+	 * 				 T: times of experiments
+	 * 				 seed: (optional) RNG seed
+	 * 				 points: (optional) number of p values, 20 by default
+	 */
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			StdOut.println("Usage: java PercolationCurve N T [seed [points]]");
+			return;
+		}
+		int N = Integer.parseInt(args[0]);
+		int T = Integer.parseInt(args[1]);
+		long seed = args.length >= 3 ? Long.parseLong(args[2]) : System.nanoTime();
+		int points = args.length >= 4 ? Integer.parseInt(args[3]) : 20;
+		PercolationCurve curve = new PercolationCurve(N, T, seed);
+		StdOut.println("p\tspanning\tlargest\tmean size");
+		for (int k = 0; k <= points; k++) {
+			double p = (double) k / points;
+			StdOut.println(p + "\t" + curve.spanningProbability(p) + "\t" + curve.largestClusterFraction(p) + "\t" + curve.meanClusterSize(p));
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/******************************************************************************
+ *  Compilation:   javac PercolationMetrics.java
+ *  Execution:     none
+ *  Dependencies:  none
+ *
+ *  Optional counters for the hot paths of the percolation engine
+ *
+ *  Turned on with -Dpercolation.metrics=true. ENABLED is a static final
+ *  constant, so when it is false every "if (PercolationMetrics.ENABLED)"
+ *  block in the engine is dead code that the JIT drops, and the engine runs
+ *  exactly as without instrumentation. When it is on, the counters are
+ *  LongAdders (cheap under contention from the worker threads), and every
+ *  experiment of PercolationStats goes into a wall-time histogram and is also
+ *  emitted as a "percolation.Trial" JFR event when a recording is running.
+ *
+ *  Method:		opens() sites opened
+ *			unions() components merged
+ *			finds() find() calls, findSteps() parent links they followed, longestFind() longest walk
+ *			queries() connectivity queries (isFull, percolates)
+ *			trialHistogram() experiments by wall time, bucket b counts [2^b, 2^(b+1)) ns
+ *			reset() zero everything
+ *			report() all of the above as text
+ ******************************************************************************/
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+public final class PercolationMetrics {
+
+    /** true if the engine records metrics; fixed at startup by the percolation.metrics property */
+    public static final boolean ENABLED = Boolean.getBoolean("percolation.metrics");
+
+    private static final LongAdder opens = new LongAdder();
+    private static final LongAdder unions = new LongAdder();
+    private static final LongAdder finds = new LongAdder();
+    private static final LongAdder findSteps = new LongAdder();
+    private static final LongAccumulator longestFind = new LongAccumulator(Math::max, 0);
+    private static final LongAdder queries = new LongAdder();
+    private static final AtomicLongArray trialNanos = new AtomicLongArray(64); // bucket b = [2^b, 2^(b+1)) ns
+
+    private PercolationMetrics() { }
+
+    // recorders, called by the engine inside "if (ENABLED)"
+
+    static void open() {
+        opens.increment();
+    }
+
+    static void union() {
+        unions.increment();
+    }
+
+    static void find(int steps) {
+        finds.increment();
+        findSteps.add(steps);
+        longestFind.accumulate(steps);
+    }
+
+    static void query() {
+        queries.increment();
+    }
+
+    // one experiment of PercolationStats: N, its index in the run, its threshold and wall time
+    static void trial(int N, int t, double threshold, long nanos) {
+        trialNanos.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+        TrialEvent event = new TrialEvent();
+        if (event.isEnabled()) {
+            event.N = N;
+            event.trial = t;
+            event.threshold = threshold;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Name("percolation.Trial")
+    @Label("Percolation Trial")
+    @Category("Percolation")
+    static class TrialEvent extends Event {
+        @Label("Grid Side")
+        int N;
+        @Label("Trial Index")
+        int trial;
+        @Label("Threshold")
+        double threshold;
+        @Label("Wall Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    /** @return number of sites opened */
+    public static long opens() { return opens.sum(); }
+
+    /** @return number of unions that merged two components */
+    public static long unions() { return unions.sum(); }
+
+    /** @return number of find() calls */
+    public static long finds() { return finds.sum(); }
+
+    /** @return total number of parent links followed by find() */
+    public static long findSteps() { return findSteps.sum(); }
+
+    /** @return most parent links followed by a single find() */
+    public static long longestFind() { return longestFind.get(); }
+
+    /** @return number of connectivity queries (isFull, percolates) */
+    public static long queries() { return queries.sum(); }
+
+    /**
+     *   @return histogram of experiment wall times: element b counts experiments
+     *           that took between 2^b and 2^(b+1) nanoseconds
+     */
+    public static long[] trialHistogram() {
+        long[] histogram = new long[trialNanos.length()];
+        for (int b = 0; b < histogram.length; b++)
+            histogram[b] = trialNanos.get(b);
+        return histogram;
+    }
+
+    /**
+     *   zero every counter and the histogram
+     */
+    public static void reset() {
+        opens.reset();
+        unions.reset();
+        finds.reset();
+        findSteps.reset();
+        longestFind.reset();
+        queries.reset();
+        for (int b = 0; b < trialNanos.length(); b++)
+            trialNanos.set(b, 0);
+    }
+
+    /**
+     *   @return counters and the non-empty histogram buckets, one per line
+     */
+    public static String report() {
+        StringBuilder s = new StringBuilder();
+        long finds = finds();
+        s.append("opens\t\t\t= ").append(opens()).append('\n');
+        s.append("unions\t\t\t= ").append(unions()).append('\n');
+        s.append("finds\t\t\t= ").append(finds).append(" (mean path ")
+         .append(finds == 0 ? 0 : (double) findSteps() / finds).append(", longest ").append(longestFind()).append(")\n");
+        s.append("queries\t\t\t= ").append(queries()).append('\n');
+        long[] histogram = trialHistogram();
+        for (int b = 0; b < histogram.length; b++)
+            if (histogram[b] > 0)
+                s.append("trials of ").append(formatNanos(1L << b)).append(" - ").append(formatNanos(2L << b))
+                 .append("\t= ").append(histogram[b]).append('\n');
+        return s.toString();
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return nanos / 1_000 + "us";
+        if (nanos < 1_000_000_000) return nanos / 1_000_000 + "ms";
+        return nanos / 1_000_000_000 + "s";
+    }
+}
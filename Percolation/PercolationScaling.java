@@ -0,0 +1,201 @@
+/**************************************************************************************
+ *  Compilation:   javac PercolationScaling.java
+ *  Execution:     java PercolationScaling T N1 N2 ... [-seed s] [-threads k] [-json]
+ *  			   	T: times of experiments for each grid size; N1 N2 ...: sides of the grids
+ *  			   	s: RNG seed; k: worker threads (default: all cores); -json: JSON instead of CSV
+ *  Dependencies:  PercolationStats.java PercolationTrial.java StdOut.java
+ *
+ *  Finite-size scaling sweep of the percolation threshold
+ *
+ *  Runs T experiments for every grid size in one JVM. All (N, trial) work items go
+ *  to one shared pool of workers, largest N first so the long trials don't end up
+ *  alone at the tail of the run. Trial t of size N uses the same RNG stream as in
+ *  PercolationStats(N, T, seed, threads), so each row of the table matches the
+ *  corresponding single-size run exactly.
+ *
+ *  Constructor:   PercolationScaling(int[] sizes, int T, long seed, int threads) run the sweep
+ *  Method:        stats(int N) statistics of grid size N
+ *                 trialMillis(int N) mean wall time of one experiment on grid size N
+ *                 toCsv() / toJson() table of all grid sizes
+ **************************************************************************************/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class PercolationScaling {
+
+	private final int[] sizes; // grid sizes, in decreasing order
+	private final PercolationStats[] stats; // stats[k] = statistics of sizes[k]
+	private final double[] trialMillis; // trialMillis[k] = mean wall time of one experiment on sizes[k]
+
+	/**
+	 * perform T experiments on each of the grid sizes, sharing one pool of workers
+	 *
+	 * @param sizes sides of the grids
+	 * @param T time of experiments for each grid size
+	 * @param seed seed of the RNG streams
+	 * @param threads number of worker threads
+	 * @throws IllegalArgumentException if sizes is empty or has a size twice, or any size, T or threads <= 0
+	 */
+	public PercolationScaling(int[] sizes, int T, long seed, int threads) {
+		if (sizes.length == 0)
+			throw new IllegalArgumentException("There should be at least one grid size");
+		if (T <= 0 || threads <= 0)
+			throw new IllegalArgumentException("Both T and threads should be greater than 0 (exclusive)");
+		this.sizes = sizes.clone();
+		Arrays.sort(this.sizes);
+		for (int i = 0, j = this.sizes.length - 1; i < j; i++, j--) { // largest first
+			int tmp = this.sizes[i];
+			this.sizes[i] = this.sizes[j];
+			this.sizes[j] = tmp;
+		}
+		if (this.sizes[this.sizes.length - 1] <= 0)
+			throw new IllegalArgumentException("Grid sizes should be greater than 0 (exclusive)");
+		for (int k = 1; k < this.sizes.length; k++)
+			if (this.sizes[k] == this.sizes[k - 1])
+				throw new IllegalArgumentException("Grid size " + this.sizes[k] + " is given more than once");
+		int K = this.sizes.length;
+		double[][] probability = new double[K][T]; // probability[k][t] = p of trial t on sizes[k]
+		long[][] nanos = new long[K][T]; // nanos[k][t] = wall time of trial t on sizes[k]
+		List<Future<?>> pending = new ArrayList<Future<?>>(K * T);
+		ExecutorService pool = Executors.newFixedThreadPool(threads); // FIFO: runs items in submission order
+		try {
+			for (int k = 0; k < K; k++) {
+				final int N = this.sizes[k];
+				final double[] results = probability[k];
+				final long[] times = nanos[k];
+				// one driver per worker and grid size, reused by all of that worker's trials of size N
+				final ThreadLocal<PercolationTrial> drivers = ThreadLocal.withInitial(() -> new PercolationTrial(N));
+				for (int t = 0; t < T; t++) {
+					final int trial = t;
+					pending.add(pool.submit(() -> {
+						long start = System.nanoTime();
+						results[trial] = drivers.get().run(PercolationStats.trialStream(seed, trial));
+						times[trial] = System.nanoTime() - start;
+					}));
+				}
+			}
+			for (Future<?> item : pending)
+				item.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Sweep was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Experiment failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+		this.stats = new PercolationStats[K];
+		this.trialMillis = new double[K];
+		for (int k = 0; k < K; k++) {
+			this.stats[k] = new PercolationStats(probability[k]);
+			long total = 0;
+			for (long time : nanos[k])
+				total += time;
+			this.trialMillis[k] = total / 1e6 / T;
+		}
+	}
+
+	// position of grid size N in sizes
+	private int indexOf(int N) {
+		for (int k = 0; k < sizes.length; k++)
+			if (sizes[k] == N) return k;
+		throw new IllegalArgumentException("Grid size " + N + " is not in the sweep");
+	}
+
+	/**
+	 * @param N side of one of the grids of the sweep
+	 * @return statistics of the percolation threshold for grid size N
+	 * @throws IllegalArgumentException if N is not in the sweep
+	 */
+	public PercolationStats stats(int N) {
+		return stats[indexOf(N)];
+	}
+
+	/**
+	 * @param N side of one of the grids of the sweep
+	 * @return mean wall time of one experiment on grid size N, in milliseconds
+	 * @throws IllegalArgumentException if N is not in the sweep
+	 */
+	public double trialMillis(int N) {
+		return trialMillis[indexOf(N)];
+	}
+
+	/**
+	 * @return one CSV line per grid size, in increasing order, after a header line
+	 */
+	public String toCsv() {
+		StringBuilder csv = new StringBuilder("N,trials,mean,stddev,confidenceLo,confidenceHi,trialMillis\n");
+		for (int k = sizes.length - 1; k >= 0; k--) {
+			PercolationStats s = stats[k];
+			csv.append(sizes[k]).append(',').append(s.trials()).append(',').append(s.mean()).append(',')
+			   .append(s.stddev()).append(',').append(s.confidenceLo()).append(',').append(s.confidenceHi()).append(',')
+			   .append(trialMillis[k]).append('\n');
+		}
+		return csv.toString();
+	}
+
+	/**
+	 * @return a JSON array with one object per grid size, in increasing order; stddev and
+	 *         the confidence interval are null when T = 1
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("[\n");
+		for (int k = sizes.length - 1; k >= 0; k--) {
+			PercolationStats s = stats[k];
+			json.append("  {\"N\": ").append(sizes[k]).append(", \"trials\": ").append(s.trials())
+			    .append(", \"mean\": ").append(json(s.mean())).append(", \"stddev\": ").append(json(s.stddev()))
+			    .append(", \"confidenceLo\": ").append(json(s.confidenceLo())).append(", \"confidenceHi\": ").append(json(s.confidenceHi()))
+			    .append(", \"trialMillis\": ").append(trialMillis[k]).append(k > 0 ? "},\n" : "}\n");
+		}
+		return json.append("]\n").toString();
+	}
+
+	// a JSON number, or null for NaN and infinities (the stddev and interval of a single experiment)
+	private static String json(double x) {
+		return Double.isFinite(x) ? String.valueOf(x) : "null";
+	}
+
+	/**
+	 * runs the sweep described by the command-line arguments and prints the table
+	 *
+	 * @param args-> T: times of experiments for each grid size
+	 * 				 N1 N2 ...: sides of the grids
+	 * 				 -seed s: (optional) RNG seed
+	 * 				 -threads k: (optional) number of worker threads, all cores by default
+	 * 				 -json: (optional) print JSON instead of CSV
+	 */
+	public static void main(String[] args) {
+		String usage = "Usage: java PercolationScaling T N1 N2 ... [-seed s] [-threads k] [-json]";
+		if (args.length < 2) {
+			StdOut.println(usage);
+			return;
+		}
+		int T = Integer.parseInt(args[0]);
+		long seed = System.nanoTime();
+		int threads = Runtime.getRuntime().availableProcessors();
+		boolean json = false;
+		List<Integer> sizes = new ArrayList<Integer>();
+		for (int i = 1; i < args.length; i++) {
+			if ((args[i].equals("-seed") || args[i].equals("-threads")) && i + 1 == args.length) {
+				StdOut.println(usage); // the option's value is missing
+				return;
+			}
+			if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-json")) json = true;
+			else sizes.add(Integer.parseInt(args[i]));
+		}
+		int[] N = new int[sizes.size()];
+		for (int k = 0; k < N.length; k++)
+			N[k] = sizes.get(k);
+		PercolationScaling sweep = new PercolationScaling(N, T, seed, threads);
+		StdOut.print(json ? sweep.toJson() : sweep.toCsv());
+	}
+}
@@ -0,0 +1,244 @@
+/**************************************************************************************
+ *  Compilation:   javac PercolationServer.java
+ *  Execution:     java PercolationServer [port [threads]]
+ *  			   	port: TCP port on the loopback interface (default 8765); threads: worker threads (default: all cores)
+ *  Dependencies:  PercolationStats.java StdOut.java
+ *
+ *  Local HTTP server answering percolation threshold queries from a warm JVM
+ *
+ *      GET /stats?N=200&T=100&seed=42          T experiments on an N-by-N grid
+ *      GET /stats?N=200&halfWidth=1e-3&seed=42 experiments till the 95% interval is ±halfWidth
+ *
+ *  answer with one line of JSON: N, trials, mean, stddev, confidenceLo/Hi and whether the
+ *  result came from the cache (stddev and the interval are null when T = 1). All runs share one fork-join pool, which stays up (and its
+ *  code JIT-compiled) between queries. A seeded run gives the same statistics whatever
+ *  the number of threads, so results are cached by (N, T or halfWidth, seed); the cache
+ *  holds futures, so concurrent identical queries run the experiments once. Queries
+ *  without a seed run afresh every time and are not cached. The cache keeps the 10000
+ *  most recently used results.
+ *
+ *  So that one query can't exhaust the heap or hold the pool forever, N is at most 2048,
+ *  T at most 1000000, N*N*T at most 2^32 site openings, and halfWidth at least 1e-5; a
+ *  halfWidth run also stops after as many experiments as the largest allowed T for its N,
+ *  even if its interval is still wider. Bad or too large parameters get a 400.
+ *
+ *  Constructor:   PercolationServer(int port, int threads) bind the server, not yet started
+ *  Method:        start() / stop() start and stop answering queries
+ **************************************************************************************/
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class PercolationServer {
+
+	private static final int DEFAULT_PORT = 8765;
+	private static final int HANDLER_THREADS = 16; // queries served at once; they mostly wait on the pool
+	private static final int MAX_N = 2048; // largest grid side, ~40 MB of trial state per worker
+	private static final int MAX_T = 1_000_000; // most experiments of a query
+	private static final long MAX_OPENINGS = 1L << 32; // most N*N*T sites opened by a query, about a minute of work
+	private static final double MIN_HALF_WIDTH = 1e-5; // narrowest interval a query may ask for
+	private static final int CACHE_SIZE = 10_000; // most results kept
+
+	private final HttpServer server;
+	private final ExecutorService handlers; // threads parsing queries and writing answers
+	private final ForkJoinPool pool; // workers running the experiments of every query
+	private final Map<String, CompletableFuture<PercolationStats>> cache; // LRU, synchronized
+
+	/**
+	 * bind a server to port on the loopback interface, with threads workers for the experiments
+	 *
+	 * @param port TCP port, 0 for any free port
+	 * @param threads number of worker threads
+	 * @throws IllegalArgumentException if threads <= 0
+	 * @throws IOException if the port can't be bound
+	 */
+	public PercolationServer(int port, int threads) throws IOException {
+		if (threads <= 0)
+			throw new IllegalArgumentException("threads should be greater than 0 (exclusive)");
+		this.pool = new ForkJoinPool(threads);
+		this.handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		this.server.setExecutor(handlers);
+		this.server.createContext("/stats", this::handle);
+		this.cache = Collections.synchronizedMap(new LinkedHashMap<String, CompletableFuture<PercolationStats>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<PercolationStats>> eldest) {
+				return size() > CACHE_SIZE; // the least recently used result goes
+			}
+		});
+	}
+
+	/**
+	 * @return the port the server is bound to
+	 */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * start answering queries
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * stop answering queries and shut the worker threads down
+	 */
+	public void stop() {
+		server.stop(0);
+		handlers.shutdown();
+		pool.shutdown();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET")) {
+				reply(exchange, 405, "{\"error\": \"only GET is supported\"}");
+				return;
+			}
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			reply(exchange, 200, answer(query));
+		} catch (IllegalArgumentException e) { // includes NumberFormatException
+			reply(exchange, 400, "{\"error\": \"" + e.getMessage().replace("\"", "'") + "\"}");
+		} catch (RuntimeException e) {
+			reply(exchange, 500, "{\"error\": \"" + String.valueOf(e).replace("\"", "'") + "\"}");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// run or look up the query, and format the answer as one line of JSON
+	private String answer(Map<String, String> query) {
+		String n = query.get("N");
+		if (n == null)
+			throw new IllegalArgumentException("N is missing");
+		int N = Integer.parseInt(n);
+		String t = query.get("T"), h = query.get("halfWidth");
+		if ((t == null) == (h == null))
+			throw new IllegalArgumentException("exactly one of T and halfWidth should be given");
+		int T = t != null ? Integer.parseInt(t) : 0;
+		double halfWidth = h != null ? Double.parseDouble(h) : 0;
+		if (N <= 0 || N > MAX_N)
+			throw new IllegalArgumentException("N should be between 1 and " + MAX_N);
+		if (t != null && (T <= 0 || T > MAX_T || (long) N * N * T > MAX_OPENINGS))
+			throw new IllegalArgumentException("T should be between 1 and " + maxTrials(N) + " for N = " + N);
+		if (h != null && !(halfWidth >= MIN_HALF_WIDTH))
+			throw new IllegalArgumentException("halfWidth should be at least " + MIN_HALF_WIDTH);
+		String s = query.get("seed");
+		PercolationStats stats;
+		boolean cached;
+		if (s == null) {
+			stats = run(N, T, halfWidth, System.nanoTime());
+			cached = false;
+		} else {
+			long seed = Long.parseLong(s);
+			String key = N + "/" + (t != null ? "T" + T : "h" + halfWidth) + "/" + seed;
+			CompletableFuture<PercolationStats> future = cache.get(key);
+			cached = future != null;
+			if (!cached) {
+				CompletableFuture<PercolationStats> mine = new CompletableFuture<>();
+				future = cache.putIfAbsent(key, mine);
+				cached = future != null; // another query is running the experiments; wait on its future
+				if (!cached) {
+					future = mine;
+					try {
+						mine.complete(run(N, T, halfWidth, seed));
+					} catch (Throwable e) { // even an Error, or the queries waiting on mine would hang
+						cache.remove(key, mine); // don't cache failures
+						mine.completeExceptionally(e); // join() below reports it, an Error as a 500
+					}
+				}
+			}
+			stats = join(future);
+		}
+		return "{\"N\": " + N + ", \"trials\": " + stats.trials() + ", \"mean\": " + json(stats.mean())
+		       + ", \"stddev\": " + json(stats.stddev()) + ", \"confidenceLo\": " + json(stats.confidenceLo())
+		       + ", \"confidenceHi\": " + json(stats.confidenceHi()) + ", \"cached\": " + cached + "}";
+	}
+
+	// a JSON number, or null for NaN and infinities (the stddev and interval of a single experiment)
+	private static String json(double x) {
+		return Double.isFinite(x) ? String.valueOf(x) : "null";
+	}
+
+	private PercolationStats run(int N, int T, double halfWidth, long seed) {
+		return T > 0 ? new PercolationStats(N, T, seed, pool) : new PercolationStats(N, halfWidth, maxTrials(N), seed, pool);
+	}
+
+	// most experiments a query may run on an N-by-N grid
+	private static int maxTrials(int N) {
+		return (int) Math.min(MAX_T, MAX_OPENINGS / ((long) N * N));
+	}
+
+	// result of a future, with the run's own exception if it failed
+	private static PercolationStats join(CompletableFuture<PercolationStats> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the run", e);
+		}
+	}
+
+	private static Map<String, String> parseQuery(String raw) {
+		Map<String, String> query = new HashMap<>();
+		if (raw == null)
+			return query;
+		for (String pair : raw.split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0)
+				query.put(java.net.URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+				          java.net.URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+		}
+		return query;
+	}
+
+	private static void reply(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * start a server, warm the engine up with a few runs, and serve till the JVM is stopped
+	 *
+	 * @param args-> port: (optional) TCP port, 8765 by default
+	 * 				 threads: (optional) number of worker threads, all cores by default
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length >= 1 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int threads = args.length >= 2 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		PercolationServer server = new PercolationServer(port, threads);
+		for (int N : new int[] { 16, 64, 256 }) // let the JIT compile the trial loops before the first query
+			server.run(N, 200, 0, N);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		StdOut.println("PercolationServer listening on http://localhost:" + server.port() + "/stats");
+	}
+}
@@ -4,25 +4,57 @@
  *  Last updated:  Oct 2, 2015
  *
  *  Compilation:   javac PercolationStats.java
- *  Execution:     java PercolationStats N T
+ *  Execution:     java PercolationStats N T [seed [threads [checkpoint]]]
  *  			   	N: numbers of the side of grid; T: times of experiments
- *  Dependencies:  Percolation.java StdRandom.java StdStats.java StdOut.java
+ *  			   	seed: RNG seed for a reproducible parallel run; threads: worker threads (default: all cores)
+ *  			   	checkpoint: save the run to this file every few seconds, and resume it if the file exists
+ *                 java PercolationStats N halfWidth [seed [threads [checkpoint]]]
+ *  			   	halfWidth: keep running experiments till the 95% confidence interval is this narrow (e.g. 1e-4)
+ *  Dependencies:  Percolation.java PercolationTrial.java PercolationBatch.java PercolationMetrics.java
+ *                 StdRandom.java StdOut.java
  *  
  *  Monte Carlo simulation for estimating the percolation threshold
  *  
  *  This program takes two command-line arguments N and T, performs T independent 
  *  computational experiments (discussed above) on an N-by-N grid, and prints the mean, 
  *  standard deviation, and the 95% confidence interval for the percolation threshold.
+ *  
+ *  Mean and variance are updated incrementally (Welford's method) as the results are
+ *  folded in trial order, so the statistics take O(1) memory and every query is O(1).
+ *  
+ *  Run with -Dpercolation.metrics=true to count opens, unions, finds and queries and to
+ *  time every experiment (see PercolationMetrics); the counts are printed after the results.
  **************************************************************************************/
 
 import edu.princeton.cs.algs4.StdRandom;
-import edu.princeton.cs.algs4.StdStats;
 import edu.princeton.cs.algs4.StdOut;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class PercolationStats {
 	
-	private double[] probability;
+	private static final int MIN_TRIALS = 30; // fewest experiments before trusting the normal approximation
+	private static final int BATCH_MAX_N = 32; // grids up to this side run K at a time in a PercolationBatch
+	private static final int BATCH_SIZE = 8; // K, experiments per PercolationBatch run
+	private static final int CHECKPOINT_MAGIC = 0x50435331; // "PCS1", first word of a checkpoint file
+	private static final long CHECKPOINT_NANOS = 10_000_000_000L; // least time between two checkpoint writes
+	
+	private int trials; // number of experiments folded in
+	private double mean; // running sample mean of percolation threshold
+	private double squaredDeviations; // running sum of squared deviations from the mean
 	
 	/**
 	 * perform T independent experiments on an N-by-N grid
@@ -33,33 +65,351 @@ public class PercolationStats {
 	 */
 	public PercolationStats(int N, int T) {
 		if (N > 0 && T > 0) { // perform T exps with N*N grid if N(grid size) and T(time of experiments) > 0 
-			Percolation testGrid; // init array to store model for T experiments
-			probability = new double[T]; // init array to store p for T experiments
-			int row, column, openSitesNum; // row and column for site, and number of open sites 
+			PercolationTrial trial = new PercolationTrial(N); // reused by all T experiments
+			// one stream seeded from StdRandom, so StdRandom.setSeed() still makes runs repeatable
+			SplittableRandom random = new SplittableRandom(((long) StdRandom.uniform(Integer.MAX_VALUE) << 32) ^ StdRandom.uniform(Integer.MAX_VALUE));
 			for (int i = 0; i < T; i++) {
-				testGrid = new Percolation(N); // init new N*N grid model
-				openSitesNum = 0; // init count for number of open sites
-				do { // keep running till it percolates
-					row = StdRandom.uniform(1, N + 1); // assign random row in [1, N+1)
-					column = StdRandom.uniform(1, N + 1); // assign random column in [1, N+1)
-					if (!testGrid.isOpen(row, column)) { //if the site isn't open
-						testGrid.open(row, column); // open site(row, column)
-						openSitesNum++; // number of open sites + 1
-					}
-				} while(!testGrid.percolates());
-				probability[i] = ((double) openSitesNum / (N * N)); // save probability to array for each experiment				
+				long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+				double p = trial.run(random);
+				if (PercolationMetrics.ENABLED)
+					PercolationMetrics.trial(N, i, p, System.nanoTime() - start);
+				add(p); // fold probability of each experiment into the statistics
 			}
 		} else // throw IllegalArgumentException if N or T <= 0
 			throw new IllegalArgumentException("Both N and T should be greater than 0 (exclusive)");
 	}
 	   
+	/**
+	 * perform T independent experiments on an N-by-N grid, split across a fork-join pool
+	 * 
+	 * Trial t draws its sites from its own RNG stream derived from (seed, t), and the results are
+	 * folded into the statistics in trial order, so mean(), stddev() and the confidence bounds are
+	 * identical for a given seed whatever the number of threads. Small grids (N <= 32) run 8
+	 * experiments at a time in a PercolationBatch, which gives the same results faster.
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param T time of experiments 
+	 * @param seed seed of the RNG streams
+	 * @param threads number of worker threads
+	 * @throws IllegalArgumentException if N, T or threads <= 0
+	 */
+	public PercolationStats(int N, int T, long seed, int threads) {
+		if (N <= 0 || T <= 0) 
+			throw new IllegalArgumentException("Both N and T should be greater than 0 (exclusive)");
+		if (threads <= 0) 
+			throw new IllegalArgumentException("threads should be greater than 0 (exclusive)");
+		run(N, T, 0, seed, threads, null);
+	}
+	
+	/**
+	 * perform experiments on an N-by-N grid, split across a fork-join pool, till the 95%
+	 * confidence interval is at most ±halfWidth wide (after at least 30 experiments)
+	 * 
+	 * Experiments are launched in rounds and their results folded in trial order; the run stops
+	 * at the first trial whose interval is narrow enough and drops the rest of that round, so the
+	 * statistics, including the number of experiments, are identical for a given seed whatever the
+	 * number of threads.
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param halfWidth target half-width of the 95% confidence interval
+	 * @param seed seed of the RNG streams
+	 * @param threads number of worker threads
+	 * @throws IllegalArgumentException if N or threads <= 0, or halfWidth isn't positive
+	 */
+	public PercolationStats(int N, double halfWidth, long seed, int threads) {
+		if (N <= 0) 
+			throw new IllegalArgumentException("N should be greater than 0 (exclusive)");
+		if (!(halfWidth > 0)) 
+			throw new IllegalArgumentException("halfWidth should be greater than 0 (exclusive)");
+		if (threads <= 0) 
+			throw new IllegalArgumentException("threads should be greater than 0 (exclusive)");
+		run(N, 0, halfWidth, seed, threads, null);
+	}
+	
+	/**
+	 * perform T independent experiments like PercolationStats(N, T, seed, threads), saving the
+	 * statistics to a checkpoint file as the run goes, and resuming from that file if it exists
+	 * 
+	 * The checkpoint holds the run's parameters, the number of experiments done (which is also
+	 * the position in the RNG streams, since trial t only depends on (seed, t)) and the running
+	 * mean and squared deviations, in a few dozen bytes. It is written at most every 10 seconds
+	 * and at the end, by replacing the old file atomically, so a killed run loses only the
+	 * experiments since the last write. The resumed statistics are identical to an uninterrupted run.
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param T time of experiments 
+	 * @param seed seed of the RNG streams
+	 * @param threads number of worker threads
+	 * @param checkpoint file the statistics are saved to and resumed from
+	 * @throws IllegalArgumentException if N, T or threads <= 0, or the checkpoint belongs to another run
+	 * @throws UncheckedIOException if the checkpoint can't be read or written
+	 */
+	public PercolationStats(int N, int T, long seed, int threads, Path checkpoint) {
+		if (N <= 0 || T <= 0) 
+			throw new IllegalArgumentException("Both N and T should be greater than 0 (exclusive)");
+		if (threads <= 0) 
+			throw new IllegalArgumentException("threads should be greater than 0 (exclusive)");
+		if (checkpoint == null)
+			throw new NullPointerException("checkpoint is null");
+		run(N, T, 0, seed, threads, checkpoint);
+	}
+	
+	/**
+	 * perform experiments till the 95% confidence interval is at most ±halfWidth wide, like
+	 * PercolationStats(N, halfWidth, seed, threads), with a checkpoint file as above
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param halfWidth target half-width of the 95% confidence interval
+	 * @param seed seed of the RNG streams
+	 * @param threads number of worker threads
+	 * @param checkpoint file the statistics are saved to and resumed from
+	 * @throws IllegalArgumentException if N or threads <= 0, halfWidth isn't positive, or the
+	 *         checkpoint belongs to another run
+	 * @throws UncheckedIOException if the checkpoint can't be read or written
+	 */
+	public PercolationStats(int N, double halfWidth, long seed, int threads, Path checkpoint) {
+		if (N <= 0) 
+			throw new IllegalArgumentException("N should be greater than 0 (exclusive)");
+		if (!(halfWidth > 0)) 
+			throw new IllegalArgumentException("halfWidth should be greater than 0 (exclusive)");
+		if (threads <= 0) 
+			throw new IllegalArgumentException("threads should be greater than 0 (exclusive)");
+		if (checkpoint == null)
+			throw new NullPointerException("checkpoint is null");
+		run(N, 0, halfWidth, seed, threads, checkpoint);
+	}
+	
+	/**
+	 * perform T independent experiments like PercolationStats(N, T, seed, threads), on a pool
+	 * the caller owns, so a long-running process can keep one warm pool for all its runs
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param T time of experiments 
+	 * @param seed seed of the RNG streams
+	 * @param pool fork-join pool the experiments run on; it is left running
+	 * @throws IllegalArgumentException if N or T <= 0
+	 * @throws NullPointerException if pool is null
+	 */
+	public PercolationStats(int N, int T, long seed, ForkJoinPool pool) {
+		if (N <= 0 || T <= 0) 
+			throw new IllegalArgumentException("Both N and T should be greater than 0 (exclusive)");
+		if (pool == null)
+			throw new NullPointerException("pool is null");
+		run(N, T, 0, T, seed, pool, null);
+	}
+	
+	/**
+	 * perform experiments till the 95% confidence interval is at most ±halfWidth wide, like
+	 * PercolationStats(N, halfWidth, seed, threads), on a pool the caller owns, but stop after
+	 * maxTrials experiments if the interval isn't narrow enough by then
+	 * 
+	 * @param N number of the side of grid -> e.g. N*N grid
+	 * @param halfWidth target half-width of the 95% confidence interval
+	 * @param maxTrials most experiments to perform
+	 * @param seed seed of the RNG streams
+	 * @param pool fork-join pool the experiments run on; it is left running
+	 * @throws IllegalArgumentException if N or maxTrials <= 0, or halfWidth isn't positive
+	 * @throws NullPointerException if pool is null
+	 */
+	public PercolationStats(int N, double halfWidth, int maxTrials, long seed, ForkJoinPool pool) {
+		if (N <= 0 || maxTrials <= 0) 
+			throw new IllegalArgumentException("Both N and maxTrials should be greater than 0 (exclusive)");
+		if (!(halfWidth > 0)) 
+			throw new IllegalArgumentException("halfWidth should be greater than 0 (exclusive)");
+		if (pool == null)
+			throw new NullPointerException("pool is null");
+		run(N, 0, halfWidth, maxTrials, seed, pool, null);
+	}
+	
+	// run on a pool of its own, shut down at the end
+	private void run(int N, int T, double halfWidth, long seed, int threads, Path checkpoint) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			run(N, T, halfWidth, T > 0 ? T : Integer.MAX_VALUE, seed, pool, checkpoint);
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	// run T experiments, or till the interval is ±halfWidth wide if T is 0, in rounds on a fork-join
+	// pool, stopping after maxTrials experiments in any case; without a checkpoint a fixed-T run is
+	// a single round
+	private void run(int N, int T, double halfWidth, int maxTrials, long seed, ForkJoinPool pool, Path checkpoint) {
+		if (checkpoint != null && Files.exists(checkpoint))
+			readCheckpoint(checkpoint, N, T, halfWidth, seed);
+		if (trials >= maxTrials || (T == 0 && narrowEnough(halfWidth)))
+			return; // the checkpoint is of a finished run
+		int round = T > 0 && checkpoint == null ? T : Math.max(MIN_TRIALS, 4 * pool.getParallelism()); // experiments launched between two checks
+		double[] probability = new double[round]; // p of each experiment of the current round
+		Drivers drivers = new Drivers(N); // drivers shared by the run's tasks
+		long saved = System.nanoTime();
+		boolean done = false;
+		while (!done) {
+			int first = trials;
+			int count = Math.min(round, maxTrials - first);
+			pool.invoke(new TrialTask(drivers, seed, first, probability, 0, count));
+			for (int i = 0; i < count && !done; i++) {
+				add(probability[i]);
+				done = trials == maxTrials || (T == 0 && narrowEnough(halfWidth));
+			}
+			if (checkpoint != null && (done || System.nanoTime() - saved >= CHECKPOINT_NANOS)) {
+				writeCheckpoint(checkpoint, N, T, halfWidth, seed);
+				saved = System.nanoTime();
+			}
+		}
+	}
+	
+	// true once there are enough experiments and the 95% confidence interval is at most ±halfWidth wide
+	private boolean narrowEnough(double halfWidth) {
+		return trials >= MIN_TRIALS && 1.96 * stddev() / Math.sqrt(trials) <= halfWidth;
+	}
+	
+	// checkpoint layout: magic, N, T, halfWidth, seed, trials (= next trial index), mean, squaredDeviations
+	private void writeCheckpoint(Path checkpoint, int N, int T, double halfWidth, long seed) {
+		Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				out.writeInt(CHECKPOINT_MAGIC);
+				out.writeInt(N);
+				out.writeInt(T);
+				out.writeDouble(halfWidth);
+				out.writeLong(seed);
+				out.writeInt(trials);
+				out.writeDouble(mean);
+				out.writeDouble(squaredDeviations);
+			}
+			Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("couldn't write checkpoint " + checkpoint, e);
+		}
+	}
+	
+	// restore the statistics from a checkpoint, after checking it was written by the same run
+	private void readCheckpoint(Path checkpoint, int N, int T, double halfWidth, long seed) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+			if (in.readInt() != CHECKPOINT_MAGIC)
+				throw new IllegalArgumentException(checkpoint + " is not a PercolationStats checkpoint");
+			if (in.readInt() != N || in.readInt() != T || in.readDouble() != halfWidth || in.readLong() != seed)
+				throw new IllegalArgumentException(checkpoint + " was written by a run with other N, T, halfWidth or seed");
+			trials = in.readInt();
+			mean = in.readDouble();
+			squaredDeviations = in.readDouble();
+		} catch (IOException e) {
+			throw new UncheckedIOException("couldn't read checkpoint " + checkpoint, e);
+		}
+	}
+	
+	// trial drivers of one run: PercolationTrials, and PercolationBatches for small grids. A task
+	// borrows a driver for its trials and hands it back, so a run creates about one driver per
+	// worker, and they all become garbage with the run; nothing is left behind in the threads of a
+	// pool that outlives the run, as ThreadLocals would be.
+	private static class Drivers {
+		final int N; // grid length
+		final boolean batched; // N is small enough to run PercolationBatches
+		private final ConcurrentLinkedQueue<PercolationTrial> trials = new ConcurrentLinkedQueue<>();
+		private final ConcurrentLinkedQueue<PercolationBatch> batches = new ConcurrentLinkedQueue<>();
+		
+		Drivers(int N) {
+			this.N = N;
+			this.batched = N <= BATCH_MAX_N;
+		}
+		
+		PercolationTrial takeTrial() {
+			PercolationTrial trial = trials.poll();
+			return trial != null ? trial : new PercolationTrial(N);
+		}
+		
+		void release(PercolationTrial trial) {
+			trials.offer(trial);
+		}
+		
+		PercolationBatch takeBatch() {
+			PercolationBatch batch = batches.poll();
+			return batch != null ? batch : new PercolationBatch(N, BATCH_SIZE);
+		}
+		
+		void release(PercolationBatch batch) {
+			batches.offer(batch);
+		}
+	}
+	
+	// run experiments [first + lo, first + hi) into results[lo, hi), splitting the range in halves
+	// until a single trial (or a batch of small-grid trials) is left
+	private static class TrialTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final Drivers drivers;
+		private final long seed;
+		private final int first;
+		private final double[] results;
+		private final int lo;
+		private final int hi;
+		
+		TrialTask(Drivers drivers, long seed, int first, double[] results, int lo, int hi) {
+			this.drivers = drivers;
+			this.seed = seed;
+			this.first = first;
+			this.results = results;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		
+		@Override
+		protected void compute() {
+			if (drivers.batched && hi - lo <= BATCH_SIZE) {
+				long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+				PercolationBatch batch = drivers.takeBatch();
+				batch.run(seed, first + lo, results, lo, hi - lo);
+				drivers.release(batch);
+				if (PercolationMetrics.ENABLED) { // the batch's grids run interleaved, so they share its time
+					long nanos = (System.nanoTime() - start) / (hi - lo);
+					for (int i = lo; i < hi; i++)
+						PercolationMetrics.trial(drivers.N, first + i, results[i], nanos);
+				}
+			} else if (hi - lo == 1) {
+				long start = PercolationMetrics.ENABLED ? System.nanoTime() : 0;
+				PercolationTrial trial = drivers.takeTrial();
+				results[lo] = trial.run(trialStream(seed, first + lo));
+				drivers.release(trial);
+				if (PercolationMetrics.ENABLED)
+					PercolationMetrics.trial(drivers.N, first + lo, results[lo], System.nanoTime() - start);
+			} else {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new TrialTask(drivers, seed, first, results, lo, mid), 
+				          new TrialTask(drivers, seed, first, results, mid, hi));
+			}
+		}
+	}
+	
+	// statistics of experiments that already ran elsewhere, folded in array order
+	PercolationStats(double[] probability) {
+		for (double p : probability)
+			add(p);
+	}
+	
+	// fold the result of one more experiment into the running mean and squared deviations
+	private void add(double p) {
+		trials++;
+		double delta = p - mean;
+		mean += delta / trials;
+		squaredDeviations += delta * (p - mean);
+	}
+	
+	// RNG stream of trial t: depends only on (seed, t), never on the thread that runs the trial
+	static SplittableRandom trialStream(long seed, int t) {
+		long z = seed + (t + 1) * 0x9E3779B97F4A7C15L; // golden-ratio increment, then mix64 finalizer
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return new SplittableRandom(z ^ (z >>> 31));
+	}
+	
 	/**
 	 * calculate sample mean of percolation threshold
 	 * 
 	 * @return sample mean of percolation threshold
 	 */
 	public double mean() {
-		return StdStats.mean(probability);
+		return mean;
 	}
 	   
 	/**
@@ -68,7 +418,16 @@ public class PercolationStats {
 	 * @return standard deviation of percolation threshold
 	 */
 	public double stddev() {
-		return StdStats.stddev(probability);
+		return Math.sqrt(squaredDeviations / (trials - 1));
+	}
+	   
+	/**
+	 * number of experiments performed
+	 * 
+	 * @return number of experiments
+	 */
+	public int trials() {
+		return trials;
 	}
 	   
 	/**
@@ -77,7 +436,7 @@ public class PercolationStats {
 	 * @return  low endpoint of 95% confidence interval
 	 */
 	public double confidenceLo() {
-		return (mean() - (1.96 * stddev()) / Math.sqrt(probability.length));
+		return (mean() - (1.96 * stddev()) / Math.sqrt(trials));
 	}
 	   
 	/**
@@ -86,7 +445,7 @@ public class PercolationStats {
 	 * @return high endpoint of 95% confidence interval
 	 */
 	public double confidenceHi() {
-		return (mean() + (1.96 * stddev()) / Math.sqrt(probability.length));
+		return (mean() + (1.96 * stddev()) / Math.sqrt(trials));
 	}
 
 	/**
@@ -95,19 +454,43 @@ public class PercolationStats {
 	 *  for the percolation threshold.
 	 *   
 	 * @param args-> N: numbers of the side of grid
-	 * 				 T: times of experiments
+	 * 				 T: times of experiments, or the target half-width of the 95% confidence
+	 * 				    interval if it has a decimal point or exponent (e.g. 1e-4)
+	 * 				 seed: (optional) run the experiments in parallel with this RNG seed
+	 * 				 threads: (optional) number of worker threads, all cores by default
+	 * 				 checkpoint: (optional) file to save the run to, and to resume it from if it exists
 	 */
 	public static void main(String[] args) {
 		int N = 100; // default 2*2 grid
 		int T = 16; // default 30 times
-		if (args.length == 2) {
+		double halfWidth = 0; // adaptive run if > 0
+		if (args.length >= 2) {
 			N = Integer.parseInt(args[0]);
-			T = Integer.parseInt(args[1]);
+			if (args[1].matches(".*[.eE].*"))
+				halfWidth = Double.parseDouble(args[1]);
+			else
+				T = Integer.parseInt(args[1]);
 		}
-		PercolationStats MonteCarloSim = new PercolationStats(N, T);
+		PercolationStats MonteCarloSim;
+		if (args.length >= 3 || halfWidth > 0) { // seeded parallel run
+			long seed = args.length >= 3 ? Long.parseLong(args[2]) : System.nanoTime();
+			int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			Path checkpoint = args.length >= 5 ? Paths.get(args[4]) : null;
+			if (halfWidth > 0)
+				MonteCarloSim = checkpoint != null ? new PercolationStats(N, halfWidth, seed, threads, checkpoint) 
+				                                   : new PercolationStats(N, halfWidth, seed, threads);
+			else
+				MonteCarloSim = checkpoint != null ? new PercolationStats(N, T, seed, threads, checkpoint) 
+				                                   : new PercolationStats(N, T, seed, threads);
+		} else
+			MonteCarloSim = new PercolationStats(N, T);
+		if (halfWidth > 0)
+			StdOut.println("trials\t\t\t= " + MonteCarloSim.trials());
 		StdOut.println("mean\t\t\t= " + MonteCarloSim.mean());
 		StdOut.println("stddev\t\t\t= " + MonteCarloSim.stddev());
 		StdOut.println("95% confidence interval = " + MonteCarloSim.confidenceLo() + ", " + MonteCarloSim.confidenceHi());
+		if (PercolationMetrics.ENABLED)
+			StdOut.print(PercolationMetrics.report());
 	}
 }
 
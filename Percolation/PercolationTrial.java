@@ -0,0 +1,66 @@
+/******************************************************************************
+ *  Compilation:   javac PercolationTrial.java
+ *  Execution:     none
+ *  Dependencies:  Percolation.java
+ *
+ *  One Monte Carlo experiment for PercolationStats
+ *
+ *  Sites are opened in the order of a random permutation of 0..N*N-1, drawn one
+ *  Fisher-Yates step at a time, so every draw opens a new site and a trial makes
+ *  exactly as many opens as it needs. The permutation lives in a primitive int
+ *  array owned by the trial object, and the grid itself is reset in place between
+ *  trials, so one object per worker thread serves all of that worker's trials and
+ *  a trial allocates nothing after the first one.
+ *
+ *  percolates() is an O(1) flag read, so run(random) checks it after every open and
+ *  opens no more sites than the experiment needs.
+ *
+ *  Constructor: 	PercolationTrial(int N) init a driver for N*N grids
+ *	Method:		run(SplittableRandom random) run one experiment, checking after every open
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+public class PercolationTrial {
+    private final int[] sites; // sites[k] = index of the k-th site to open
+    private final Percolation grid; // grid reused by every trial
+
+    /**
+     *   Create a trial driver for N-by-N grids
+     *
+     *   @param N the number of sides in grid
+     *   @throws IllegalArgumentException if N ≤ 0 or N*N > 2^29 (GridUnionFind.MAX_SITES)
+     */
+    public PercolationTrial(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a trial.");
+        this.grid = new Percolation(N); // first, as it rejects an N too large for N*N int indices
+        this.sites = new int[N * N];
+    }
+
+    /**
+     *   open sites of a new N-by-N grid in random order till it percolates, checking
+     *   percolates() after every open
+     *
+     *   @param random RNG stream of this experiment
+     *   @return fraction of sites open when the grid first percolates
+     */
+    public double run(SplittableRandom random) {
+        Percolation grid = this.grid;
+        grid.reset();
+        int[] sites = this.sites;
+        int n = sites.length;
+        // start from the identity so the result depends only on the RNG stream, not on earlier trials
+        for (int i = 0; i < n; i++)
+            sites[i] = i;
+        int opened = 0; // sites[0..opened) are open, sites[opened..n) are still blocked
+        do {
+            // Fisher-Yates step: pick the next site uniformly among the blocked ones
+            int j = opened + random.nextInt(n - opened);
+            int site = sites[j];
+            sites[j] = sites[opened];
+            sites[opened] = site;
+            grid.openSite(site);
+            opened++;
+        } while (!grid.percolates());
+        return (double) grid.percolationOpenCount() / n;
+    }
+}
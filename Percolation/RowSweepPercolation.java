@@ -0,0 +1,238 @@
+/******************************************************************************
+ *  Compilation:   javac RowSweepPercolation.java
+ *  Execution:     java RowSweepPercolation N p [rows [seed]]
+ *  			   	N: width of the lattice; p: site vacancy probability
+ *  			   	rows: number of rows (default N); seed: RNG seed
+ *                 java RowSweepPercolation < file
+ *  			   	file: one row per line, '1' for an open site and '0' for a blocked one
+ *  Dependencies:  StdOut.java
+ *
+ *  Streaming (Hoshen-Kopelman) percolation for a fixed realization of open sites
+ *
+ *  The lattice is consumed one row at a time. Only the cluster labels of the last
+ *  row are kept, in a union-find over 2N slots: slots [0, N) for the clusters that
+ *  reach the previous row, slots [N, 2N) for the sites of the row being added.
+ *  After each row the clusters that no longer reach the last row are retired into
+ *  the statistics and the live ones are relabeled into [0, N), so memory is O(N)
+ *  whatever the number of rows.
+ *
+ *  Constructor: 	RowSweepPercolation(int N) init a sweep over rows of width N
+ *	Method:		addRow(boolean[] row) add the next row, row[c] = open state of column c
+ *			percolates() check if a cluster connects the first row to the last row added
+ *			numberOfClusters() number of clusters so far
+ *			largestClusterSize() number of sites in the largest cluster so far
+ *			numberOfOpenSites() number of open sites so far
+ *			rows() number of rows added
+ ******************************************************************************/
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class RowSweepPercolation {
+    private final int N; // lattice width
+    private final int[] labels; // labels[c] = slot of the cluster of column c in the last row, -1 if blocked
+    private final int[] parent; // union-find over 2N slots
+    private final long[] size; // size[r] = number of sites in the cluster whose root is slot r
+    private final boolean[] top; // top[r] = cluster whose root is slot r touches the first row
+    private final int[] relabel; // relabel[r] = new slot of root r while compacting, -1 if not live
+    private final long[] liveSize; // scratch for compacting: sizes of the live clusters
+    private final boolean[] liveTop; // scratch for compacting: top flags of the live clusters
+    private int liveClusters; // clusters reaching the last row, in slots [0, liveClusters)
+    private long rows; // number of rows added
+    private long openSites; // number of open sites
+    private long retiredClusters; // clusters that no longer reach the last row
+    private long retiredLargest; // size of the largest retired cluster
+    private long liveLargest; // size of the largest live cluster
+    private boolean spanning; // a live cluster touches the first row
+
+    /**
+     *   Create a sweep over rows of width N
+     *
+     *   @param N the width of the lattice
+     *   @throws IllegalArgumentException if N ≤ 0
+     */
+    public RowSweepPercolation(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a sweep.");
+        this.N = N;
+        this.labels = new int[N];
+        java.util.Arrays.fill(this.labels, -1);
+        this.parent = new int[2 * N];
+        this.size = new long[2 * N];
+        this.top = new boolean[2 * N];
+        this.relabel = new int[2 * N];
+        java.util.Arrays.fill(this.relabel, -1);
+        this.liveSize = new long[N];
+        this.liveTop = new boolean[N];
+    }
+
+    /**
+     *   add the next row of the lattice
+     *
+     *   @param row row[c] = true if column c of the row is open
+     *   @throws IllegalArgumentException if row doesn't have N columns
+     */
+    public void addRow(boolean[] row) {
+        if (row.length != this.N) throw new IllegalArgumentException("row has " + row.length + " columns, expected " + this.N);
+        int N = this.N;
+        boolean first = this.rows == 0;
+        // label every open site of the new row, joining it to its left and upper neighbors
+        for (int c = 0; c < N; c++) {
+            if (!row[c]) continue;
+            int slot = N + c;
+            this.parent[slot] = slot;
+            this.size[slot] = 1;
+            this.top[slot] = first;
+            this.openSites++;
+            if (c > 0 && row[c - 1]) union(slot - 1, slot);
+            if (this.labels[c] >= 0) union(this.labels[c], slot);
+        }
+        // live clusters are the ones with a site in the new row; give them slots [0, live)
+        int live = 0;
+        this.liveLargest = 0;
+        this.spanning = false;
+        for (int c = 0; c < N; c++) {
+            if (!row[c]) continue;
+            int root = find(N + c);
+            if (this.relabel[root] < 0) {
+                this.relabel[root] = live;
+                this.liveSize[live] = this.size[root];
+                this.liveTop[live] = this.top[root];
+                this.liveLargest = Math.max(this.liveLargest, this.size[root]);
+                this.spanning |= this.top[root];
+                live++;
+            }
+        }
+        // clusters of the previous row that didn't reach the new row are finished
+        for (int slot = 0; slot < this.liveClusters; slot++) {
+            int root = find(slot);
+            if (this.relabel[root] == -1) {
+                this.relabel[root] = -2; // count each retired cluster once
+                this.retiredClusters++;
+                this.retiredLargest = Math.max(this.retiredLargest, this.size[root]);
+            }
+        }
+        for (int c = 0; c < N; c++)
+            this.labels[c] = row[c] ? this.relabel[find(N + c)] : -1;
+        // move the live clusters into slots [0, live) as singleton roots, and clear the scratch marks
+        java.util.Arrays.fill(this.relabel, -1);
+        for (int slot = 0; slot < live; slot++) {
+            this.parent[slot] = slot;
+            this.size[slot] = this.liveSize[slot];
+            this.top[slot] = this.liveTop[slot];
+        }
+        this.liveClusters = live;
+        this.rows++;
+    }
+
+    // root of slot p, with path halving
+    private int find(int p) {
+        while (this.parent[p] != p) {
+            this.parent[p] = this.parent[this.parent[p]];
+            p = this.parent[p];
+        }
+        return p;
+    }
+
+    // merge the clusters of slots p and q, linking the smaller root under the larger one
+    private void union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+        if (rootP == rootQ) return;
+        if (this.size[rootP] < this.size[rootQ]) {
+            int tmp = rootP;
+            rootP = rootQ;
+            rootQ = tmp;
+        }
+        this.parent[rootQ] = rootP;
+        this.size[rootP] += this.size[rootQ];
+        this.top[rootP] |= this.top[rootQ];
+    }
+
+    /**
+     *   check if a cluster connects the first row to the last row added?
+     *
+     *   @return true if it percolates; false otherwise
+     */
+    public boolean percolates() {
+        return this.spanning;
+    }
+
+    /**
+     *   @return number of clusters in the rows added so far
+     */
+    public long numberOfClusters() {
+        return this.retiredClusters + this.liveClusters;
+    }
+
+    /**
+     *   @return number of sites in the largest cluster in the rows added so far
+     */
+    public long largestClusterSize() {
+        return Math.max(this.retiredLargest, this.liveLargest);
+    }
+
+    /**
+     *   @return number of open sites in the rows added so far
+     */
+    public long numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    /**
+     *   @return number of rows added
+     */
+    public long rows() {
+        return this.rows;
+    }
+
+    /**
+     *   sweep a random lattice (or one read from standard input) and print its statistics
+     *
+     *   @param args-> N: width of the lattice; p: site vacancy probability
+     *   			 rows: (optional) number of rows, N by default; seed: (optional) RNG seed
+     *   			 no arguments: read rows of '0'/'1' from standard input
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 1) { // p is missing
+            StdOut.println("Usage: java RowSweepPercolation N p [rows [seed]], or java RowSweepPercolation < file");
+            return;
+        }
+        RowSweepPercolation sweep = null;
+        if (args.length >= 2) {
+            int N = Integer.parseInt(args[0]);
+            double p = Double.parseDouble(args[1]);
+            long rows = args.length >= 3 ? Long.parseLong(args[2]) : N;
+            SplittableRandom random = args.length >= 4 ? new SplittableRandom(Long.parseLong(args[3])) : new SplittableRandom();
+            sweep = new RowSweepPercolation(N);
+            boolean[] row = new boolean[N];
+            for (long r = 0; r < rows; r++) {
+                for (int c = 0; c < N; c++)
+                    row[c] = random.nextDouble() < p;
+                sweep.addRow(row);
+            }
+        } else {
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+            boolean[] row = null;
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                if (sweep == null) {
+                    sweep = new RowSweepPercolation(line.length());
+                    row = new boolean[line.length()];
+                }
+                for (int c = 0; c < row.length; c++)
+                    row[c] = c < line.length() && line.charAt(c) == '1';
+                sweep.addRow(row);
+            }
+            if (sweep == null) throw new IllegalArgumentException("no rows on standard input");
+        }
+        StdOut.println("rows\t\t\t= " + sweep.rows());
+        StdOut.println("percolates\t\t= " + sweep.percolates());
+        StdOut.println("open sites\t\t= " + sweep.numberOfOpenSites());
+        StdOut.println("clusters\t\t= " + sweep.numberOfClusters());
+        StdOut.println("largest cluster\t\t= " + sweep.largestClusterSize());
+    }
+}
@@ -0,0 +1,47 @@
+/******************************************************************************
+ *  Compilation:   javac SquareLattice.java
+ *  Execution:     none
+ *  Dependencies:  Lattice.java
+ *
+ *  N-by-N square lattice with 4 neighbors (up, down, left, right), sites in
+ *  row-major order; the same topology as Percolation.
+ ******************************************************************************/
+
+public class SquareLattice implements Lattice {
+    private final int N; // grid length
+
+    /**
+     *   @param N the number of sides in grid
+     *   @throws IllegalArgumentException if N ≤ 0 or N*N overflows an int
+     */
+    public SquareLattice(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a lattice.");
+        if ((long) N * N > Integer.MAX_VALUE) throw new IllegalArgumentException("N*N sites don't fit in an int index.");
+        this.N = N;
+    }
+
+    /**
+     *   @return index of the site at 0-based (row, column)
+     */
+    public int site(int row, int column) {
+        return row * N + column;
+    }
+
+    public int sites() { return N * N; }
+
+    public int maxDegree() { return 4; }
+
+    public int neighbors(int site, int[] out) {
+        int row = site / N, column = site - row * N;
+        int count = 0;
+        if (row > 0) out[count++] = site - N;
+        if (row < N - 1) out[count++] = site + N;
+        if (column > 0) out[count++] = site - 1;
+        if (column < N - 1) out[count++] = site + 1;
+        return count;
+    }
+
+    public boolean isTop(int site) { return site < N; }
+
+    public boolean isBottom(int site) { return site >= N * (N - 1); }
+}
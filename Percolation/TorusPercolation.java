@@ -0,0 +1,232 @@
+/******************************************************************************
+ *  Compilation:   javac TorusPercolation.java
+ *  Execution:     java TorusPercolation M N [seed]
+ *  Dependencies:  StdOut.java
+ *
+ *  Data Type "TorusPercolation" for percolation with periodic boundaries
+ *
+ *  An M-by-N grid whose last column is adjacent to its first column and whose
+ *  last row is adjacent to its first row. A cluster wraps around the torus if it
+ *  contains a loop that goes around it, which the union-find detects while it
+ *  merges sites, without a separate graph search:
+ *
+ *  every site stores, next to its parent, the displacement (dx, dy) from the site
+ *  to its parent in unwrapped coordinates, so find() also gives the displacement
+ *  from a site to its root. Joining two neighbors a and b = a + d that already
+ *  share a root closes a loop; the loop winds around the torus exactly when
+ *  D(a) - D(b) - d is non-zero, its x part for the horizontal direction and its
+ *  y part for the vertical one.
+ *
+ *  Constructor: 	TorusPercolation(int M, int N) init a M*N torus (M rows, N columns)
+ *	Method:		open(int i, int j) open site(row,column)
+ *			isOpen(int i, int j) check if site(row,column) is open
+ *			isWrapping(int i, int j) check if site(row,column) is in a wrapping cluster
+ *			wrapsHorizontally() check if any cluster wraps around the columns
+ *			wrapsVertically() check if any cluster wraps around the rows
+ *			numberOfOpenSites() number of open sites
+ *			reset() block all sites again, reusing the torus's memory
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class TorusPercolation {
+    private static final byte WRAP_X = 1; // cluster wraps around the columns
+    private static final byte WRAP_Y = 2; // cluster wraps around the rows
+
+    private final int M; // number of rows
+    private final int N; // number of columns
+    private final int[] parent; // parent[i] = parent of i, or -(component size) if i is a root
+    private final int[] dx; // dx[i] = column of parent[i] - column of i, unwrapped
+    private final int[] dy; // dy[i] = row of parent[i] - row of i, unwrapped
+    private final long[] siteState; // bit i = block(0)/open(1) state of site i, 64 sites per word
+    private final byte[] rootState; // rootState[r] = WRAP_X/WRAP_Y bits of the component whose root is r
+    private byte wrapState; // WRAP_X/WRAP_Y bits of all components
+    private int openSites; // number of open sites
+    private int findDx, findDy; // displacement from the last site passed to find() to its root
+
+    /**
+     *   Create M-by-N torus with all sites blocked
+     *
+     *   @param M the number of rows
+     *   @param N the number of columns
+     *   @throws IllegalArgumentException if M ≤ 0 or N ≤ 0, or M*N overflows an int
+     */
+    public TorusPercolation(int M, int N) {
+        if (M <= 0 || N <= 0) throw new IllegalArgumentException("M or N is less than 1, couldn't init a grid.");
+        if ((long) M * N > Integer.MAX_VALUE) throw new IllegalArgumentException("M*N sites don't fit in an int index.");
+        this.M = M;
+        this.N = N;
+        this.parent = new int[M * N];
+        java.util.Arrays.fill(this.parent, -1);
+        this.dx = new int[M * N];
+        this.dy = new int[M * N];
+        this.siteState = new long[(int) (((long) M * N + 63) >>> 6)];
+        this.rootState = new byte[M * N];
+    }
+
+    /**
+     *   open site (row i, column j) if it is not open already
+     *
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public void open(int i, int j) {
+        validate(i, j);
+        int row = i - 1, column = j - 1;
+        int index = row * N + column;
+        if (isOpenSite(index)) return;
+        this.siteState[index >>> 6] |= 1L << index; // shift distance is taken mod 64
+        this.openSites++;
+        // neighbors across the edges wrap around; (dx, dy) is still one step in the unwrapped plane
+        unionNeighbor(index, (row == 0 ? M - 1 : row - 1) * N + column, 0, -1);
+        unionNeighbor(index, (row == M - 1 ? 0 : row + 1) * N + column, 0, 1);
+        unionNeighbor(index, row * N + (column == 0 ? N - 1 : column - 1), -1, 0);
+        unionNeighbor(index, row * N + (column == N - 1 ? 0 : column + 1), 1, 0);
+    }
+
+    // join site with neighbor = site + (ddx, ddy) if the neighbor is open, recording any winding loop
+    private void unionNeighbor(int site, int neighbor, int ddx, int ddy) {
+        if (!isOpenSite(neighbor)) return;
+        int rootA = find(site);
+        int ax = this.findDx, ay = this.findDy;
+        int rootB = find(neighbor);
+        int bx = this.findDx, by = this.findDy;
+        // displacement from rootB to rootA: D(a) - D(b) - d
+        int wx = ax - bx - ddx, wy = ay - by - ddy;
+        if (rootA == rootB) {
+            byte state = 0;
+            if (wx != 0) state |= WRAP_X;
+            if (wy != 0) state |= WRAP_Y;
+            this.rootState[rootA] |= state;
+            this.wrapState |= state;
+            return;
+        }
+        byte state = (byte) (this.rootState[rootA] | this.rootState[rootB]);
+        if (this.parent[rootA] > this.parent[rootB]) { // sizes are negated: rootB is larger, link rootA under it
+            this.parent[rootB] += this.parent[rootA];
+            this.parent[rootA] = rootB;
+            this.dx[rootA] = -wx;
+            this.dy[rootA] = -wy;
+            this.rootState[rootB] = state;
+        } else {
+            this.parent[rootA] += this.parent[rootB];
+            this.parent[rootB] = rootA;
+            this.dx[rootB] = wx;
+            this.dy[rootB] = wy;
+            this.rootState[rootA] = state;
+        }
+    }
+
+    // root of site p with path halving; leaves the displacement from p to the root in (findDx, findDy)
+    private int find(int p) {
+        int sx = 0, sy = 0;
+        while (this.parent[p] >= 0) {
+            int q = this.parent[p];
+            if (this.parent[q] >= 0) { // path halving: point p at its grandparent
+                this.dx[p] += this.dx[q];
+                this.dy[p] += this.dy[q];
+                this.parent[p] = this.parent[q];
+            }
+            sx += this.dx[p];
+            sy += this.dy[p];
+            p = this.parent[p];
+        }
+        this.findDx = sx;
+        this.findDy = sy;
+        return p;
+    }
+
+    // check the open bit of site by its index in the M*N array
+    private boolean isOpenSite(int index) {
+        return (this.siteState[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     *   check if the site (row i, column j) is open?
+     *
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *	 @return TRUE if the site is open; FALSE if it's not
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public boolean isOpen(int i, int j) {
+        validate(i, j);
+        return isOpenSite((i - 1) * N + (j - 1));
+    }
+
+    /**
+     *   check if the site (row i, column j) belongs to a cluster that wraps around the torus?
+     *
+     *	 @param i row index of the site (1 <= i <= M)
+     *	 @param	j column index of the site (1 <= j <= N)
+     *	 @return TRUE if the site's cluster wraps in any direction; FALSE if it doesn't
+     *   @throws IndexOutOfBoundsException if any argument is outside its prescribed range.
+     */
+    public boolean isWrapping(int i, int j) {
+        validate(i, j);
+        return this.rootState[find((i - 1) * N + (j - 1))] != 0;
+    }
+
+    /**
+     *   @return true if a cluster wraps around the columns (left-right); false otherwise
+     */
+    public boolean wrapsHorizontally() {
+        return (this.wrapState & WRAP_X) != 0;
+    }
+
+    /**
+     *   @return true if a cluster wraps around the rows (top-bottom); false otherwise
+     */
+    public boolean wrapsVertically() {
+        return (this.wrapState & WRAP_Y) != 0;
+    }
+
+    /**
+     *   @return number of open sites
+     */
+    public int numberOfOpenSites() {
+        return this.openSites;
+    }
+
+    /**
+     *   block all sites again so the torus can be reused for another experiment;
+     *   the arrays are cleared in place, nothing is allocated
+     */
+    public void reset() {
+        java.util.Arrays.fill(this.parent, -1);
+        java.util.Arrays.fill(this.siteState, 0L);
+        java.util.Arrays.fill(this.rootState, (byte) 0);
+        // dx and dy are only read for sites with a parent, and are written when the parent is
+        this.wrapState = 0;
+        this.openSites = 0;
+    }
+
+    // validate if site(i,j) is a valid site, and throw IndexOutOfBoundsException if it's not
+    private void validate(int i, int j) {
+        if ((i < 1 || i > this.M) || (j < 1 || j > this.N))
+            throw new IndexOutOfBoundsException("site(" + i + "," + j + ") is not between (1,1) and (" + this.M + "," + this.N + ")");
+    }
+
+    /**
+     *   open random sites of a M-by-N torus till a cluster wraps in either direction,
+     *   and print the fraction of open sites
+     *
+     *   @param args-> M: number of rows; N: number of columns; seed: (optional) RNG seed
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            StdOut.println("Usage: java TorusPercolation M N [seed]");
+            return;
+        }
+        int M = Integer.parseInt(args[0]);
+        int N = Integer.parseInt(args[1]);
+        SplittableRandom random = args.length >= 3 ? new SplittableRandom(Long.parseLong(args[2])) : new SplittableRandom();
+        TorusPercolation torus = new TorusPercolation(M, N);
+        while (!torus.wrapsHorizontally() && !torus.wrapsVertically())
+            torus.open(random.nextInt(1, M + 1), random.nextInt(1, N + 1));
+        StdOut.println((double) torus.numberOfOpenSites() / ((double) M * N)
+                       + (torus.wrapsHorizontally() ? " horizontal" : "") + (torus.wrapsVertically() ? " vertical" : ""));
+    }
+}
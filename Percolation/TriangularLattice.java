@@ -0,0 +1,50 @@
+/******************************************************************************
+ *  Compilation:   javac TriangularLattice.java
+ *  Execution:     none
+ *  Dependencies:  Lattice.java
+ *
+ *  N-by-N triangular lattice with 6 neighbors, drawn on a square grid in
+ *  row-major order: the 4 sides plus the (up, right) and (down, left) diagonals.
+ ******************************************************************************/
+
+public class TriangularLattice implements Lattice {
+    private final int N; // grid length
+
+    /**
+     *   @param N the number of sides in grid
+     *   @throws IllegalArgumentException if N ≤ 0 or N*N overflows an int
+     */
+    public TriangularLattice(int N) {
+        if (N <= 0) throw new IllegalArgumentException("N is less than 1, couldn't init a lattice.");
+        if ((long) N * N > Integer.MAX_VALUE) throw new IllegalArgumentException("N*N sites don't fit in an int index.");
+        this.N = N;
+    }
+
+    /**
+     *   @return index of the site at 0-based (row, column)
+     */
+    public int site(int row, int column) {
+        return row * N + column;
+    }
+
+    public int sites() { return N * N; }
+
+    public int maxDegree() { return 6; }
+
+    public int neighbors(int site, int[] out) {
+        int row = site / N, column = site - row * N;
+        boolean up = row > 0, down = row < N - 1, left = column > 0, right = column < N - 1;
+        int count = 0;
+        if (up) out[count++] = site - N;
+        if (up && right) out[count++] = site - N + 1;
+        if (down) out[count++] = site + N;
+        if (down && left) out[count++] = site + N - 1;
+        if (left) out[count++] = site - 1;
+        if (right) out[count++] = site + 1;
+        return count;
+    }
+
+    public boolean isTop(int site) { return site < N; }
+
+    public boolean isBottom(int site) { return site >= N * (N - 1); }
+}
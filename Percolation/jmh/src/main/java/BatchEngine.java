@@ -0,0 +1,25 @@
+/******************************************************************************
+ *  Dependencies:  PercolationBatch.java
+ *
+ *  Benchmark adapter of PercolationBatch, which only runs whole experiments,
+ *  8 grids at a time
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+import percolation.bench.TrialEngine;
+
+public class BatchEngine implements TrialEngine {
+    private static final int K = 8; // grids per batch, as in PercolationStats
+
+    private final PercolationBatch batch;
+
+    public BatchEngine(int N) {
+        this.batch = new PercolationBatch(N, K);
+    }
+
+    public void trials(SplittableRandom random, double[] results, int count) {
+        long seed = random.nextLong();
+        for (int first = 0; first < count; first += K)
+            batch.run(seed, first, results, first, Math.min(K, count - first));
+    }
+}
@@ -0,0 +1,24 @@
+/******************************************************************************
+ *  Dependencies:  LatticePercolation.java SquareLattice.java
+ *
+ *  Benchmark adapter of LatticePercolation on a SquareLattice: the same engine
+ *  as Percolation with the neighborhood behind the Lattice interface
+ ******************************************************************************/
+import percolation.bench.SiteEngine;
+
+public class LatticeEngine extends SiteEngine {
+    private final LatticePercolation grid;
+
+    public LatticeEngine(int N) {
+        super(N);
+        this.grid = new LatticePercolation(new SquareLattice(N));
+    }
+
+    public void open(int i, int j) { grid.open((i - 1) * N + (j - 1)); }
+
+    public boolean isFull(int i, int j) { return grid.isFull((i - 1) * N + (j - 1)); }
+
+    public boolean percolates() { return grid.percolates(); }
+
+    public void reset() { grid.reset(); }
+}
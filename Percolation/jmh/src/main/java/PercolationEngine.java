@@ -0,0 +1,31 @@
+/******************************************************************************
+ *  Dependencies:  Percolation.java PercolationTrial.java
+ *
+ *  Benchmark adapter of Percolation: one union-find with TOP/BOTTOM bits per
+ *  root, and PercolationTrial for full experiments as PercolationStats runs them
+ ******************************************************************************/
+import java.util.SplittableRandom;
+
+import percolation.bench.SiteEngine;
+
+public class PercolationEngine extends SiteEngine {
+    private final Percolation grid;
+    private final PercolationTrial trial;
+
+    public PercolationEngine(int N) {
+        super(N);
+        this.grid = new Percolation(N);
+        this.trial = new PercolationTrial(N);
+    }
+
+    public void open(int i, int j) { grid.open(i, j); }
+
+    public boolean isFull(int i, int j) { return grid.isFull(i, j); }
+
+    public boolean percolates() { return grid.percolates(); }
+
+    public void reset() { grid.reset(); }
+
+    @Override
+    public double trial(SplittableRandom random) { return trial.run(random); }
+}
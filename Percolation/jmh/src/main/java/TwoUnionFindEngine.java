@@ -0,0 +1,102 @@
+/******************************************************************************
+ *  Dependencies:  none
+ *
+ *  Baseline engine: the original Percolation design, kept here to compare the
+ *  current engine against. Two weighted quick-union structures over N*N sites
+ *  plus a virtual top and a virtual bottom site; the second one has no virtual
+ *  bottom, so isFull() doesn't suffer from backwash. Sites are open or blocked
+ *  in a boolean[]. The union-find is algs4's WeightedQuickUnionUF (union by
+ *  size, no path compression), inlined so the benchmarks don't need algs4.
+ ******************************************************************************/
+import percolation.bench.SiteEngine;
+
+public class TwoUnionFindEngine extends SiteEngine {
+    private final WeightedQuickUnionUF grid; // N*N sites + virtual top + virtual bottom
+    private final WeightedQuickUnionUF bwUF; // N*N sites + virtual top, for isFull()
+    private final boolean[] siteState;
+    private final int vTop, vBot;
+
+    public TwoUnionFindEngine(int N) {
+        super(N);
+        this.vTop = 0;
+        this.vBot = N * N + 1;
+        this.grid = new WeightedQuickUnionUF(N * N + 2);
+        this.bwUF = new WeightedQuickUnionUF(N * N + 2);
+        this.siteState = new boolean[N * N];
+    }
+
+    public void open(int i, int j) {
+        int site = (i - 1) * N + j; // 1..N*N, 0 is the virtual top
+        if (siteState[site - 1]) return;
+        siteState[site - 1] = true;
+        if (i == 1) {
+            grid.union(vTop, site);
+            bwUF.union(vTop, site);
+        }
+        if (i == N) grid.union(site, vBot);
+        if (i > 1 && siteState[site - N - 1]) union(site - N, site);
+        if (i < N && siteState[site + N - 1]) union(site + N, site);
+        if (j > 1 && siteState[site - 2]) union(site - 1, site);
+        if (j < N && siteState[site]) union(site + 1, site);
+    }
+
+    private void union(int p, int q) {
+        grid.union(p, q);
+        bwUF.union(p, q);
+    }
+
+    public boolean isFull(int i, int j) {
+        return bwUF.connected(vTop, (i - 1) * N + j);
+    }
+
+    public boolean percolates() {
+        return grid.connected(vTop, vBot);
+    }
+
+    public void reset() {
+        grid.reset();
+        bwUF.reset();
+        java.util.Arrays.fill(siteState, false);
+    }
+
+    // algs4 WeightedQuickUnionUF, plus reset() so a grid can be reused between trials
+    private static final class WeightedQuickUnionUF {
+        private final int[] parent;
+        private final int[] size;
+
+        WeightedQuickUnionUF(int n) {
+            parent = new int[n];
+            size = new int[n];
+            reset();
+        }
+
+        void reset() {
+            for (int i = 0; i < parent.length; i++) {
+                parent[i] = i;
+                size[i] = 1;
+            }
+        }
+
+        int find(int p) {
+            while (p != parent[p])
+                p = parent[p];
+            return p;
+        }
+
+        boolean connected(int p, int q) {
+            return find(p) == find(q);
+        }
+
+        void union(int p, int q) {
+            int rootP = find(p), rootQ = find(q);
+            if (rootP == rootQ) return;
+            if (size[rootP] < size[rootQ]) {
+                parent[rootP] = rootQ;
+                size[rootQ] += size[rootP];
+            } else {
+                parent[rootQ] = rootP;
+                size[rootP] += size[rootQ];
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ *  Execution:     java -jar target/benchmarks.jar GridBenchmark [-p N=...] [-p engine=...]
+ *
+ *  Cost of the single-site operations of each engine, per call
+ *
+ *  open:        opens the sites of a grid in a fixed random order; the grid is
+ *               reset once all N*N sites are open, which adds O(1) per call
+ *  isFull:      queries random sites of a grid with ~59% of its sites open
+ *  percolates:  the same grid; Percolation answers from a flag, the baseline
+ *               walks two union-find paths
+ ******************************************************************************/
+package percolation.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class GridBenchmark {
+    private static final double OPEN_FRACTION = 0.59; // close to the threshold, where clusters are largest
+    private static final int QUERIES = 1 << 12; // query sites, a power of two
+
+    @Param({"64", "256", "1024", "2048"})
+    public int N;
+
+    @Param({"Percolation", "TwoUnionFind", "Lattice"})
+    public String engine;
+
+    private SiteEngine openGrid; // grid that open() fills
+    private int[] openRows, openColumns; // random order of all sites
+    private int next; // next site for open()
+
+    private SiteEngine queryGrid; // grid with OPEN_FRACTION of its sites open
+    private int[] queryRows, queryColumns; // random sites for isFull()
+    private int query; // next site for isFull()
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int n = N * N;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int site = order[j];
+            order[j] = order[i];
+            order[i] = site;
+        }
+        openRows = new int[n];
+        openColumns = new int[n];
+        for (int i = 0; i < n; i++) {
+            openRows[i] = order[i] / N + 1;
+            openColumns[i] = order[i] % N + 1;
+        }
+        openGrid = SiteEngine.create(engine, N);
+        next = 0;
+
+        queryGrid = SiteEngine.create(engine, N);
+        for (int i = 0; i < (int) (OPEN_FRACTION * n); i++)
+            queryGrid.open(openRows[i], openColumns[i]);
+        queryRows = new int[QUERIES];
+        queryColumns = new int[QUERIES];
+        for (int k = 0; k < QUERIES; k++) {
+            queryRows[k] = random.nextInt(1, N + 1);
+            queryColumns[k] = random.nextInt(1, N + 1);
+        }
+        query = 0;
+    }
+
+    @Benchmark
+    public void open() {
+        if (next == openRows.length) {
+            openGrid.reset();
+            next = 0;
+        }
+        openGrid.open(openRows[next], openColumns[next]);
+        next++;
+    }
+
+    @Benchmark
+    public boolean isFull() {
+        int k = query++ & (QUERIES - 1);
+        return queryGrid.isFull(queryRows[k], queryColumns[k]);
+    }
+
+    @Benchmark
+    public boolean percolates() {
+        return queryGrid.percolates();
+    }
+}
@@ -0,0 +1,82 @@
+/******************************************************************************
+ *  Dependencies:  the Percolation engines, through the *Engine adapters
+ *
+ *  A percolation engine that opens and queries single sites, as GridBenchmark
+ *  sees it; it runs whole experiments for TrialBenchmark through open() and
+ *  percolates() unless the adapter has a faster driver. Adapters are loaded
+ *  by name, as described in TrialEngine.
+ ******************************************************************************/
+package percolation.bench;
+
+import java.util.SplittableRandom;
+
+public abstract class SiteEngine implements TrialEngine {
+    protected final int N; // grid length
+    private final int[] sites; // sites[k] = index of the k-th site opened by trial()
+
+    /**
+     *   @param N the number of sides in grid
+     */
+    protected SiteEngine(int N) {
+        this.N = N;
+        this.sites = new int[N * N];
+    }
+
+    /**
+     *   load the adapter nameEngine from the default package for N-by-N grids
+     *
+     *   @param name engine name, e.g. Percolation or TwoUnionFind
+     *   @param N the number of sides in grid
+     *   @return the engine
+     *   @throws IllegalArgumentException if there is no such engine, or it only runs whole experiments
+     */
+    public static SiteEngine create(String name, int N) {
+        TrialEngine engine = TrialEngine.create(name, N);
+        if (!(engine instanceof SiteEngine))
+            throw new IllegalArgumentException("Engine " + name + " only runs whole experiments");
+        return (SiteEngine) engine;
+    }
+
+    /** open site (row i, column j), 1 <= i, j <= N */
+    public abstract void open(int i, int j);
+
+    /** check if site (row i, column j) is full */
+    public abstract boolean isFull(int i, int j);
+
+    /** check if the grid percolates */
+    public abstract boolean percolates();
+
+    /** block all sites again */
+    public abstract void reset();
+
+    /**
+     *   open sites of a new grid in random order till it percolates, through open() and
+     *   percolates(); engines with their own trial driver override this
+     *
+     *   @param random RNG stream of this experiment
+     *   @return fraction of sites open when the grid first percolates
+     */
+    public double trial(SplittableRandom random) {
+        reset();
+        int[] sites = this.sites;
+        int n = sites.length;
+        for (int i = 0; i < n; i++)
+            sites[i] = i;
+        int opened = 0;
+        while (!percolates()) {
+            // Fisher-Yates step: pick the next site uniformly among the blocked ones
+            int j = opened + random.nextInt(n - opened);
+            int site = sites[j];
+            sites[j] = sites[opened];
+            sites[opened++] = site;
+            open(site / N + 1, site % N + 1);
+        }
+        return (double) opened / n;
+    }
+
+    @Override
+    public void trials(SplittableRandom random, double[] results, int count) {
+        for (int k = 0; k < count; k++)
+            results[k] = trial(random);
+    }
+}
@@ -0,0 +1,60 @@
+/******************************************************************************
+ *  Execution:     java -jar target/benchmarks.jar TrialBenchmark [-p N=...] [-p engine=...]
+ *
+ *  Time of one full Monte Carlo experiment (open random sites till the grid
+ *  percolates) per engine and grid size, the unit of work of PercolationStats.
+ *  Experiments run 8 per call so PercolationBatch is measured the way
+ *  PercolationStats uses it; the score is per experiment.
+ ******************************************************************************/
+package percolation.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class TrialBenchmark {
+    private static final int TRIALS = 8; // experiments per call
+
+    @Param({"16", "32", "64", "128", "256", "512"})
+    public int N;
+
+    @Param({"Percolation", "Batch", "TwoUnionFind", "Lattice"})
+    public String engine;
+
+    private TrialEngine grid;
+    private SplittableRandom random;
+    private final double[] results = new double[TRIALS];
+
+    @Setup
+    public void setUp() {
+        grid = TrialEngine.create(engine, N);
+        random = new SplittableRandom(42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public void trial(Blackhole blackhole) {
+        grid.trials(random, results, TRIALS);
+        for (double p : results)
+            blackhole.consume(p);
+    }
+}
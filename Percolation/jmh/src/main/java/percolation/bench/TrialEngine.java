@@ -0,0 +1,45 @@
+/******************************************************************************
+ *  Dependencies:  the Percolation engines, through the *Engine adapters
+ *
+ *  A percolation engine that runs whole Monte Carlo experiments, as
+ *  TrialBenchmark sees it
+ *
+ *  JMH refuses benchmarks in the default package, and a named package can't
+ *  import the default-package Percolation classes. Each engine is therefore
+ *  wrapped by an adapter in the default package (PercolationEngine,
+ *  BatchEngine, ...) and the benchmarks load the adapter by name. Only one
+ *  adapter is loaded per JMH fork, so the calls stay monomorphic and the JIT
+ *  inlines them. Engines that also open single sites extend SiteEngine.
+ ******************************************************************************/
+package percolation.bench;
+
+import java.util.SplittableRandom;
+
+public interface TrialEngine {
+
+    /**
+     *   load the adapter nameEngine from the default package for N-by-N grids
+     *
+     *   @param name engine name, e.g. Percolation or Batch
+     *   @param N the number of sides in grid
+     *   @return the engine
+     *   @throws IllegalArgumentException if there is no such engine
+     */
+    static TrialEngine create(String name, int N) {
+        try {
+            return (TrialEngine) Class.forName(name + "Engine").getConstructor(int.class).newInstance(N);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unknown engine " + name, e);
+        }
+    }
+
+    /**
+     *   run count experiments into results[0..count), each opening random sites of a new
+     *   grid till it percolates
+     *
+     *   @param random RNG stream the experiments are drawn from
+     *   @param results receives the threshold of each experiment
+     *   @param count number of experiments
+     */
+    void trials(SplittableRandom random, double[] results, int count);
+}
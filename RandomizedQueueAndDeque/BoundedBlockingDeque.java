@@ -0,0 +1,469 @@
+/**************************************************************************************
+ *  Compilation:   javac BoundedBlockingDeque.java
+ *  Execution:     java BoundedBlockingDeque
+ *
+ *  Deque with a fixed capacity for producer/consumer pipelines: producers block (or
+ *  time out) while it is full and consumers block while it is empty, so a slow stage
+ *  holds back the stages before it instead of letting them fill the heap.
+ *
+ *  The items sit in a circular array allocated once at the given capacity. Every
+ *  operation holds one ReentrantLock, and waiting threads park on its notFull and
+ *  notEmpty conditions; a waiting virtual thread unmounts from its carrier instead
+ *  of pinning it, as it would inside synchronized/wait(). Each add signals a single
+ *  waiting consumer and each remove a single waiting producer.
+ *
+ *  Constructor: public BoundedBlockingDeque(int capacity) // construct an empty deque
+ *	Method:	public void putFirst(Item item) / putLast(Item item)       // add, waiting for space
+ *				  public Item takeFirst() / takeLast()                       // remove, waiting for an item
+ *				  public boolean offerFirst(Item item[, long timeout, TimeUnit unit]) // add unless still full
+ *				  public boolean offerLast(Item item[, long timeout, TimeUnit unit])  // add unless still full
+ *				  public Item pollFirst([long timeout, TimeUnit unit])       // remove, or null if still empty
+ *				  public Item pollLast([long timeout, TimeUnit unit])        // remove, or null if still empty
+ *				  public int drainTo(Collection<? super Item> c[, int maxItems]) // move items from the front to c
+ *				  public int size() / remainingCapacity() / capacity(), boolean isEmpty()
+ *				  public static void main(String[] args)                     // unit testing: producers and consumers on a small capacity
+ *****************************************************************************************************/
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class BoundedBlockingDeque<Item> {
+
+	private final Object[] items; // items[(head + i) % capacity] = i-th item from the front
+	private int head; // index of the front item
+	private int dequeSize;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notEmpty = lock.newCondition(); // consumers wait here
+	private final Condition notFull = lock.newCondition(); // producers wait here
+
+	/**
+	 * construct an empty deque that holds at most capacity items
+	 * @param capacity
+	 * @throws IllegalArgumentException if capacity <= 0
+	 */
+	public BoundedBlockingDeque(int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity should be greater than 0 (exclusive)");
+		this.items = new Object[capacity];
+	}
+
+	/**
+	 * add the item to the front, waiting for space if the deque is full
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putFirst(Item item) throws InterruptedException {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == items.length)
+				notFull.await();
+			linkFirst(item);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * add the item to the end, waiting for space if the deque is full
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void putLast(Item item) throws InterruptedException {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == items.length)
+				notFull.await();
+			linkLast(item);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * add the item to the front if there is space now
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 * @return true if the item was added; false if the deque is full
+	 */
+	public boolean offerFirst(Item item) {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		lock.lock();
+		try {
+			if (dequeSize == items.length) return false;
+			linkFirst(item);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * add the item to the end if there is space now
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 * @return true if the item was added; false if the deque is full
+	 */
+	public boolean offerLast(Item item) {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		lock.lock();
+		try {
+			if (dequeSize == items.length) return false;
+			linkLast(item);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * add the item to the front, waiting up to timeout for space
+	 * @param item
+	 * @param timeout longest wait
+	 * @param unit unit of timeout
+	 * @throws NullPointerException if the param "item" is null
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return true if the item was added; false if the deque was still full
+	 */
+	public boolean offerFirst(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == items.length) {
+				if (nanos <= 0) return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			linkFirst(item);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * add the item to the end, waiting up to timeout for space
+	 * @param item
+	 * @param timeout longest wait
+	 * @param unit unit of timeout
+	 * @throws NullPointerException if the param "item" is null
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return true if the item was added; false if the deque was still full
+	 */
+	public boolean offerLast(Item item, long timeout, TimeUnit unit) throws InterruptedException {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == items.length) {
+				if (nanos <= 0) return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			linkLast(item);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the front, waiting for one if the deque is empty
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return the item from the front
+	 */
+	public Item takeFirst() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == 0)
+				notEmpty.await();
+			return unlinkFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the end, waiting for one if the deque is empty
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return the item from the end
+	 */
+	public Item takeLast() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == 0)
+				notEmpty.await();
+			return unlinkLast();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the front if there is one now
+	 * @return the item from the front, or null if the deque is empty
+	 */
+	public Item pollFirst() {
+		lock.lock();
+		try {
+			return dequeSize == 0 ? null : unlinkFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the end if there is one now
+	 * @return the item from the end, or null if the deque is empty
+	 */
+	public Item pollLast() {
+		lock.lock();
+		try {
+			return dequeSize == 0 ? null : unlinkLast();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the front, waiting up to timeout for one
+	 * @param timeout longest wait
+	 * @param unit unit of timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return the item from the front, or null if the deque was still empty
+	 */
+	public Item pollFirst(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == 0) {
+				if (nanos <= 0) return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return unlinkFirst();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove and return the item from the end, waiting up to timeout for one
+	 * @param timeout longest wait
+	 * @param unit unit of timeout
+	 * @throws InterruptedException if interrupted while waiting
+	 * @return the item from the end, or null if the deque was still empty
+	 */
+	public Item pollLast(long timeout, TimeUnit unit) throws InterruptedException {
+		long nanos = unit.toNanos(timeout);
+		lock.lockInterruptibly();
+		try {
+			while (dequeSize == 0) {
+				if (nanos <= 0) return null;
+				nanos = notEmpty.awaitNanos(nanos);
+			}
+			return unlinkLast();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * remove all items, front first, and add them to c
+	 * @param c collection the items are added to
+	 * @throws NullPointerException if c is null
+	 * @throws IllegalArgumentException if c is this deque
+	 * @return number of items moved
+	 */
+	public int drainTo(Collection<? super Item> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * remove up to maxItems items, front first, and add them to c, under one lock
+	 * acquisition; waiting producers are woken for all the freed space at once
+	 * @param c collection the items are added to
+	 * @param maxItems most items to move
+	 * @throws NullPointerException if c is null
+	 * @throws IllegalArgumentException if c is this deque
+	 * @return number of items moved; if c.add throws, the items moved before it stay in c
+	 *         and are gone from the deque
+	 */
+	@SuppressWarnings("unchecked")
+	public int drainTo(Collection<? super Item> c, int maxItems) {
+		if (c == null) throw new NullPointerException("Collection is null.");
+		if (c == (Object) this) throw new IllegalArgumentException("Can't drain a deque into itself.");
+		lock.lock();
+		int moved = 0;
+		try {
+			int count = Math.min(Math.max(maxItems, 0), dequeSize);
+			while (moved < count) {
+				c.add((Item) items[head]);
+				items[head] = null;
+				head = head + 1 == items.length ? 0 : head + 1;
+				dequeSize--;
+				moved++;
+			}
+			return moved;
+		} finally {
+			if (moved > 0) notFull.signalAll(); // even if c.add threw, the items moved so far freed space
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the number of items on the deque
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return dequeSize;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * is the deque empty?
+	 * @return true if the deque is empty; vice versa
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return the number of items that can be added before the deque is full
+	 */
+	public int remainingCapacity() {
+		return items.length - size();
+	}
+
+	/**
+	 * @return the most items the deque holds
+	 */
+	public int capacity() {
+		return items.length;
+	}
+
+	// the four helpers below are called with the lock held and the deque not full / not empty
+
+	private void linkFirst(Item item) {
+		head = head == 0 ? items.length - 1 : head - 1;
+		items[head] = item;
+		dequeSize++;
+		notEmpty.signal();
+	}
+
+	private void linkLast(Item item) {
+		int tail = head + dequeSize;
+		items[tail >= items.length ? tail - items.length : tail] = item;
+		dequeSize++;
+		notEmpty.signal();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Item unlinkFirst() {
+		Item item = (Item) items[head];
+		items[head] = null; // avoid loitering
+		head = head + 1 == items.length ? 0 : head + 1;
+		dequeSize--;
+		notFull.signal();
+		return item;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Item unlinkLast() {
+		int tail = head + dequeSize - 1;
+		if (tail >= items.length) tail -= items.length;
+		Item item = (Item) items[tail];
+		items[tail] = null; // avoid loitering
+		dequeSize--;
+		notFull.signal();
+		return item;
+	}
+
+	/**
+	 * unit testing: the timed offer and poll give up after their timeout, drainTo moves
+	 * items front first and at most maxItems of them, and 3 producers (putFirst, putLast,
+	 * offerLast with a timeout) and 3 consumers (takeFirst, pollLast with a timeout,
+	 * drainTo) pass 300000 distinct items through a deque of capacity 4, so every one of
+	 * them blocks over and over; every item should have come out exactly once
+	 * @param args
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		BoundedBlockingDeque<Integer> small = new BoundedBlockingDeque<>(2);
+		long start = System.nanoTime();
+		if (small.pollFirst(20, TimeUnit.MILLISECONDS) != null) throw new AssertionError("poll of an empty deque returned an item");
+		small.putLast(1);
+		small.putFirst(0);
+		if (small.offerLast(2, 20, TimeUnit.MILLISECONDS)) throw new AssertionError("offer to a full deque succeeded");
+		if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40)) throw new AssertionError("timed calls didn't wait");
+		List<Integer> drained = new ArrayList<>();
+		if (small.drainTo(drained, 1) != 1 || small.drainTo(drained) != 1 || !drained.equals(Arrays.asList(0, 1)) || !small.isEmpty())
+			throw new AssertionError("drainTo moved " + drained);
+
+		final int n = 100000, producers = 3;
+		BoundedBlockingDeque<Integer> deque = new BoundedBlockingDeque<>(4);
+		AtomicIntegerArray seen = new AtomicIntegerArray(producers * n); // times each item came out
+		AtomicInteger removed = new AtomicInteger();
+		Thread[] threads = new Thread[2 * producers];
+		for (int k = 0; k < producers; k++) {
+			final int first = k * n, kind = k;
+			threads[k] = new Thread(() -> {
+				try {
+					for (int i = first; i < first + n; i++) {
+						if (kind == 0) deque.putFirst(i);
+						else if (kind == 1) deque.putLast(i);
+						else while (!deque.offerLast(i, 1, TimeUnit.MILLISECONDS)) { }
+					}
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+		for (int k = 0; k < producers; k++) { // as many consumers as producers
+			final int kind = k;
+			threads[producers + k] = new Thread(() -> {
+				List<Integer> batch = new ArrayList<>();
+				try {
+					while (removed.get() < producers * n) {
+						if (kind == 0) batch.add(deque.takeFirst());
+						else if (kind == 2) deque.drainTo(batch, 3);
+						else {
+							Integer item = deque.pollLast(1, TimeUnit.MILLISECONDS);
+							if (item != null) batch.add(item);
+						}
+						for (int x : batch)
+							seen.incrementAndGet(x);
+						removed.addAndGet(batch.size());
+						batch.clear();
+					}
+				} catch (InterruptedException e) {
+					// the takeFirst() consumer is interrupted once every item has come out
+				}
+			});
+		}
+		for (Thread thread : threads)
+			thread.start();
+		while (removed.get() < producers * n)
+			Thread.sleep(1);
+		threads[producers].interrupt();
+		for (Thread thread : threads)
+			thread.join();
+		for (int i = 0; i < producers * n; i++)
+			if (seen.get(i) != 1) throw new AssertionError("item " + i + " came out " + seen.get(i) + " times");
+		if (!deque.isEmpty()) throw new AssertionError("deque isn't empty at the end");
+		StdOut.println("BoundedBlockingDeque: " + producers * n + " items, each removed exactly once");
+	}
+
+}
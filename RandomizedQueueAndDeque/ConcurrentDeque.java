@@ -0,0 +1,179 @@
+/**************************************************************************************
+ *  Compilation:   javac ConcurrentDeque.java
+ *  Execution:     java ConcurrentDeque
+ *  
+ *  Thread-safe Deque for many producers and many consumers at both ends, without a
+ *  global lock. The items are kept in a java.util.concurrent.ConcurrentLinkedDeque,
+ *  whose operations at either end are lock-free (a CAS on the end node), so threads
+ *  working at different ends, or at the same end, never block each other. The size is
+ *  kept in a LongAdder next to it, so size() is O(1) instead of a walk of the list.
+ *  isEmpty() reads the same counter, so the two always agree with each other; both are
+ *  weakly consistent, exact when no other thread is changing the deque and otherwise
+ *  possibly off by the calls in flight (the counter is updated just after the list).
+ *  
+ *  For a task queue with one owner and many thieves, WorkStealingDeque is cheaper.
+ *  
+ *  Constructor: public ConcurrentDeque()                // construct an empty deque
+ *	Method:	public boolean isEmpty()                 // is the deque empty?
+ *	  			public int size()                        // return the number of items on the deque
+ * 				  public void addFirst(Item item)          // add the item to the front
+ * 				  public void addLast(Item item)           // add the item to the end
+ * 				  public Item removeFirst()                // remove and return the item from the front
+ * 				  public Item removeLast()                 // remove and return the item from the end
+ * 				  public Item pollFirst()                  // remove and return the front item, or null if empty
+ * 				  public Item pollLast()                   // remove and return the end item, or null if empty
+ * 				  public Iterator<Item> iterator()         // weakly consistent iterator from front to end
+ * 				  public static void main(String[] args)   // unit testing: concurrent producers and consumers at both ends
+ *****************************************************************************************************/
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class ConcurrentDeque<Item> implements Iterable<Item> {
+	
+	private final ConcurrentLinkedDeque<Item> items = new ConcurrentLinkedDeque<>();
+	private final LongAdder dequeSize = new LongAdder(); // adds minus removes, updated after each one
+	
+	/**
+	 * is the deque empty? Weakly consistent like size(), and always agrees with it
+	 * @return true if the deque is empty; vice versa
+	 */
+	public boolean isEmpty() {
+		return dequeSize.sum() <= 0;
+	}
+	
+	/**
+	 * @return the number of items on the deque; weakly consistent, exact when no other
+	 *         thread is changing it, otherwise possibly off by the calls in flight
+	 */
+	public int size() {
+		return (int) Math.max(0, Math.min(Integer.MAX_VALUE, dequeSize.sum()));
+	}
+	
+	/**
+	 * add the item to the front
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 */
+	public void addFirst(Item item) {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		items.addFirst(item);
+		dequeSize.increment();
+	}
+	
+	/**
+	 * add the item to the end
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 */
+	public void addLast(Item item) {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		items.addLast(item);
+		dequeSize.increment();
+	}
+	
+	/**
+	 * remove and return the item from the front
+	 * @throws NoSuchElementException if the Deque is empty
+	 * @return the item from the front
+	 */
+	public Item removeFirst() {
+		Item item = pollFirst();
+		if (item == null) throw new NoSuchElementException("There is no item in Deque.");
+		return item;
+	}
+	
+	/**
+	 * remove and return the item from the end
+	 * @throws NoSuchElementException if the Deque is empty
+	 * @return the item from the end
+	 */
+	public Item removeLast() {
+		Item item = pollLast();
+		if (item == null) throw new NoSuchElementException("There is no item in Deque.");
+		return item;
+	}
+	
+	/**
+	 * remove and return the item from the front; with several consumers, checking
+	 * isEmpty() first and then calling removeFirst() races, this doesn't
+	 * @return the item from the front, or null if the deque is empty
+	 */
+	public Item pollFirst() {
+		Item item = items.pollFirst();
+		if (item != null) dequeSize.decrement();
+		return item;
+	}
+	
+	/**
+	 * remove and return the item from the end
+	 * @return the item from the end, or null if the deque is empty
+	 */
+	public Item pollLast() {
+		Item item = items.pollLast();
+		if (item != null) dequeSize.decrement();
+		return item;
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException if the client calls the remove() method in the 
+	 *         iterator
+	 * @throws NoSuchElementException if the client calls the next() method in the iterator 
+	 *         and there are no more items to return.
+	 * @return an iterator over items in order from front to end; it never throws
+	 *         ConcurrentModificationException, and may or may not see changes made after
+	 *         it was created
+	 */
+	public Iterator<Item> iterator() {
+		Iterator<Item> it = items.iterator();
+		return new Iterator<Item>() {
+			public boolean hasNext() { return it.hasNext(); }
+			public void remove() { throw new UnsupportedOperationException("remove() is not supported."); }
+			public Item next() {
+				if (!hasNext()) throw new NoSuchElementException("There are no more items.");
+				return it.next();
+			}
+		};
+	}
+	
+	/**
+	 * unit testing: 4 threads each add 100000 distinct items, alternating ends, and poll
+	 * after every add, 2 from the front and 2 from the end; with what is left drained,
+	 * every item should have come out exactly once
+	 * @param args
+	 * @throws InterruptedException if interrupted while waiting for the threads
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int threads = 4, n = 100000;
+		ConcurrentDeque<Integer> deque = new ConcurrentDeque<>();
+		AtomicIntegerArray seen = new AtomicIntegerArray(threads * n); // times each item came out
+		Thread[] workers = new Thread[threads];
+		for (int k = 0; k < threads; k++) {
+			final int first = k * n;
+			final boolean front = k % 2 == 0;
+			workers[k] = new Thread(() -> {
+				for (int i = first; i < first + n; i++) {
+					if ((i & 1) == 0) deque.addFirst(i);
+					else deque.addLast(i);
+					Integer item = front ? deque.pollFirst() : deque.pollLast();
+					if (item != null) seen.incrementAndGet(item);
+				}
+			});
+			workers[k].start();
+		}
+		for (Thread worker : workers)
+			worker.join();
+		Integer item;
+		while ((item = deque.pollFirst()) != null)
+			seen.incrementAndGet(item);
+		for (int i = 0; i < threads * n; i++)
+			if (seen.get(i) != 1) throw new AssertionError("item " + i + " came out " + seen.get(i) + " times");
+		if (!deque.isEmpty() || deque.size() != 0) throw new AssertionError("drained deque isn't empty");
+		StdOut.println("ConcurrentDeque: " + threads * n + " items, each removed exactly once");
+	}
+
+}
@@ -18,30 +18,43 @@
  * 				  public void addLast(Item item)           // add the item to the end
  * 				  public Item removeFirst()                // remove and return the item from the front
  * 				  public Item removeLast()                 // remove and return the item from the end
+ * 				  public void addAll(Collection<? extends Item> c)      // add the items of c to the end, in order
+ * 				  public void addAllFirst(Collection<? extends Item> c) // add the items of c to the front, in order
+ * 				  public List<Item> removeFirstN(int n)    // remove and return the n items from the front
+ * 				  public Object[] toArray()                // the items in order from front to end
  * 				  public Iterator<Item> iterator()         // return an iterator over items in order from front to end
+ * 				  public Spliterator<Item> spliterator()   // sized, splittable traversal for streams
  * 				  public static void main(String[] args)   // unit testing
+ *  
+ *  The items live in a circular array whose capacity is a power of two, so an index wraps
+ *  around with a mask instead of a division. The array doubles when it is full and halves
+ *  when it is only a quarter full (the gap between the two keeps a deque near a boundary
+ *  from resizing on every call), so adding and removing allocate nothing except on a
+ *  resize, and the items sit in contiguous memory.
  *****************************************************************************************************/
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 public class Deque<Item> implements Iterable<Item> {
 	
-	private DoublyNode first;
-	private DoublyNode last;
-	private int dequeSize;
+	private static final int MIN_CAPACITY = 8; // smallest array, a power of two
 	
-	// Node of Doubly-linked List
-	private class DoublyNode {
-		 Item item;
-		 DoublyNode prev;
-		 DoublyNode next;
-	}
+	private Item[] items; // items[(head + i) & (items.length - 1)] = i-th item from the front
+	private int head; // index of the front item
+	private int dequeSize;
 	
 	/**
 	 * construct an empty deque
 	 */
+	@SuppressWarnings("unchecked")
 	public Deque() {
-		this.first = null;
+		this.items = (Item[]) new Object[MIN_CAPACITY];
+		this.head = 0;
 		dequeSize = 0;
 	}
 	
@@ -64,20 +77,13 @@ public class Deque<Item> implements Iterable<Item> {
 	 * add the item to the front
 	 * @param item
 	 * @throws NullPointerException if the param "item" is null
+	 * @throws IllegalStateException if the deque already holds 2^30 items
 	 */
 	public void addFirst(Item item) {
 		if (item == null) throw new NullPointerException("Item you added is null.");
-		if (dequeSize == 0) {
-			first = new DoublyNode();
-			first.item = item;
-			last = first;
-		} else {
-			DoublyNode oldFirst = first;
-			first = new DoublyNode();
-			first.item = item;
-			first.next = oldFirst;
-			oldFirst.prev = first;
-		}
+		if (dequeSize == items.length) ensureCapacity(dequeSize + 1);
+		head = (head - 1) & (items.length - 1);
+		items[head] = item;
 		dequeSize++;
 	}
 	
@@ -85,22 +91,13 @@ public class Deque<Item> implements Iterable<Item> {
 	 * add the item to the end
 	 * @param item
 	 * @throws NullPointerException if the param "item" is null
+	 * @throws IllegalStateException if the deque already holds 2^30 items
 	 */
 	public void addLast(Item item) {
 		if (item == null) throw new NullPointerException("Item you added is null.");
-		if (dequeSize == 0) {
-			last = new DoublyNode();
-			last.item = item;
-			first = last;
-		} else {
-			DoublyNode oldLast = last;
-			last = new DoublyNode();
-			last.item = item;
-			last.prev = oldLast;
-			oldLast.next = last;
-		}
+		if (dequeSize == items.length) ensureCapacity(dequeSize + 1);
+		items[(head + dequeSize) & (items.length - 1)] = item;
 		dequeSize++;
-		
 	}
 	
 	/**
@@ -110,15 +107,11 @@ public class Deque<Item> implements Iterable<Item> {
 	 */
 	public Item removeFirst() {
 		if (dequeSize == 0) throw new NoSuchElementException("There is no item in Deque.");
-		Item temp = first.item;
-		if (dequeSize == 1) {
-			first = null;
-			last = null;
-		} else {
-			first = first.next;
-			first.prev = null;
-		}
+		Item temp = items[head];
+		items[head] = null; // avoid loitering
+		head = (head + 1) & (items.length - 1);
 		dequeSize--;
+		shrinkIfSparse();
 		return temp;
 	}
 	
@@ -129,18 +122,126 @@ public class Deque<Item> implements Iterable<Item> {
 	 */
 	public Item removeLast() {
 		if (dequeSize == 0) throw new NoSuchElementException("There is no item in Deque.");
-		Item temp = last.item;
-		if (dequeSize == 1) {
-			last = null;
-			first = null;
-		} else {
-			last = last.prev;
-			last.next = null;
-		}
+		int tail = (head + dequeSize - 1) & (items.length - 1);
+		Item temp = items[tail];
+		items[tail] = null; // avoid loitering
 		dequeSize--;
+		shrinkIfSparse();
 		return temp;
 	}
 	
+	/**
+	 * add the items of c to the end, in c's iteration order, copying them in at most
+	 * two runs after one resize at most
+	 * @param c
+	 * @throws NullPointerException if c or any of its items is null; the deque is unchanged then
+	 * @throws IllegalStateException if the items wouldn't fit in 2^30 slots; the deque is unchanged then
+	 */
+	public void addAll(Collection<? extends Item> c) {
+		Object[] added = checkedArray(c);
+		ensureCapacity(dequeSize + added.length);
+		int tail = (head + dequeSize) & (items.length - 1);
+		int firstPart = Math.min(added.length, items.length - tail); // items up to the end of the array
+		System.arraycopy(added, 0, items, tail, firstPart);
+		System.arraycopy(added, firstPart, items, 0, added.length - firstPart);
+		dequeSize += added.length;
+	}
+	
+	/**
+	 * add the items of c to the front, in c's iteration order, so the first item of c
+	 * becomes the front item
+	 * @param c
+	 * @throws NullPointerException if c or any of its items is null; the deque is unchanged then
+	 * @throws IllegalStateException if the items wouldn't fit in 2^30 slots; the deque is unchanged then
+	 */
+	public void addAllFirst(Collection<? extends Item> c) {
+		Object[] added = checkedArray(c);
+		ensureCapacity(dequeSize + added.length);
+		int newHead = (head - added.length) & (items.length - 1);
+		int firstPart = Math.min(added.length, items.length - newHead);
+		System.arraycopy(added, 0, items, newHead, firstPart);
+		System.arraycopy(added, firstPart, items, 0, added.length - firstPart);
+		head = newHead;
+		dequeSize += added.length;
+	}
+	
+	/**
+	 * remove and return the n items from the front
+	 * @param n number of items to remove
+	 * @throws IllegalArgumentException if n < 0
+	 * @throws NoSuchElementException if the Deque has fewer than n items; nothing is removed then
+	 * @return the removed items, front item first
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Item> removeFirstN(int n) {
+		if (n < 0) throw new IllegalArgumentException("n should not be negative.");
+		if (n > dequeSize) throw new NoSuchElementException("There are only " + dequeSize + " items in Deque.");
+		Object[] removed = copyOut(n);
+		int firstPart = Math.min(n, items.length - head);
+		Arrays.fill(items, head, head + firstPart, null); // avoid loitering
+		Arrays.fill(items, 0, n - firstPart, null);
+		head = (head + n) & (items.length - 1);
+		dequeSize -= n;
+		int capacity = items.length;
+		while (capacity > MIN_CAPACITY && dequeSize <= capacity / 4)
+			capacity /= 2;
+		if (capacity < items.length) resize(capacity);
+		return (List<Item>) (List<?>) Arrays.asList(removed);
+	}
+	
+	/**
+	 * @return a new array of the items in order from front to end
+	 */
+	public Object[] toArray() {
+		return copyOut(dequeSize);
+	}
+	
+	// the first n items, front first, in a new array
+	private Object[] copyOut(int n) {
+		Object[] a = new Object[n];
+		int firstPart = Math.min(n, items.length - head);
+		System.arraycopy(items, head, a, 0, firstPart);
+		System.arraycopy(items, 0, a, firstPart, n - firstPart);
+		return a;
+	}
+	
+	// the items of c in an array, after checking none is null
+	private static Object[] checkedArray(Collection<?> c) {
+		if (c == null) throw new NullPointerException("Collection you added is null.");
+		Object[] a = c.toArray();
+		for (Object item : a)
+			if (item == null) throw new NullPointerException("Item you added is null.");
+		return a;
+	}
+	
+	// grow the array to the smallest power of two that holds capacity items, at most 2^30
+	private void ensureCapacity(int capacity) {
+		if (capacity < 0) throw new IllegalStateException("Deque is too large.");
+		if (capacity <= items.length) return;
+		int grown = items.length;
+		while (grown < capacity) {
+			if (grown > (1 << 29)) throw new IllegalStateException("Deque is too large.");
+			grown *= 2;
+		}
+		resize(grown);
+	}
+	
+	// halve the array once it is a quarter full, so it is half full afterwards
+	private void shrinkIfSparse() {
+		if (items.length > MIN_CAPACITY && dequeSize == items.length / 4) resize(items.length / 2);
+	}
+	
+	// move the items to an array of the given power-of-two capacity, front item at index 0
+	@SuppressWarnings("unchecked")
+	private void resize(int capacity) {
+		Item[] resized = (Item[]) new Object[capacity];
+		int firstPart = Math.min(dequeSize, items.length - head); // items from head up to the end of the array
+		System.arraycopy(items, head, resized, 0, firstPart);
+		System.arraycopy(items, 0, resized, firstPart, dequeSize - firstPart); // items that wrapped around
+		items = resized;
+		head = 0;
+	}
+	
 	/**
 	 * @throws UnsupportedOperationException if the client calls the remove() method in the 
 	 *         iterator
@@ -148,22 +249,57 @@ public class Deque<Item> implements Iterable<Item> {
 	 *         and there are no more items to return.
 	 * @return an iterator over items in order from front to end
 	 */
-	public Iterator<Item> iterator() { return new ListIterator(); }
+	public Iterator<Item> iterator() { return new ArrayIterator(); }
+	
+	/**
+	 * @return a spliterator over items in order from front to end; it knows its exact size
+	 *         and splits by halving its range of the array, so parallel streams divide the
+	 *         items evenly. Like the iterator, it assumes the deque isn't changed meanwhile.
+	 */
+	@Override
+	public Spliterator<Item> spliterator() { return new ArraySpliterator(0, dequeSize); }
+	
+	// items at positions [from, to) from the front
+	private class ArraySpliterator implements Spliterator<Item> {
+		private int from;
+		private final int to;
+		ArraySpliterator(int from, int to) { this.from = from; this.to = to; }
+		public Spliterator<Item> trySplit() {
+			int mid = (from + to) >>> 1;
+			if (mid <= from) return null;
+			Spliterator<Item> prefix = new ArraySpliterator(from, mid);
+			from = mid;
+			return prefix;
+		}
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if (action == null) throw new NullPointerException();
+			if (from >= to) return false;
+			action.accept(items[(head + from++) & (items.length - 1)]);
+			return true;
+		}
+		public void forEachRemaining(Consumer<? super Item> action) {
+			if (action == null) throw new NullPointerException();
+			Item[] items = Deque.this.items;
+			int mask = items.length - 1, head = Deque.this.head;
+			for (; from < to; from++)
+				action.accept(items[(head + from) & mask]);
+		}
+		public long estimateSize() { return to - from; }
+		public int characteristics() { return ORDERED | SIZED | SUBSIZED | NONNULL; }
+	}
 	
 	// @throws UnsupportedOperationException
 	// if the client calls the remove() method in the iterator
 	// @throws NoSuchElementException
 	// if the client calls the next() method in the iterator and there are no more items to
 	// return.
-	private class ListIterator implements Iterator<Item> {
-		private DoublyNode current = first;
-		public boolean hasNext() { return current != null; }
+	private class ArrayIterator implements Iterator<Item> {
+		private int current = 0; // position from the front of the next item
+		public boolean hasNext() { return current < dequeSize; }
 		public void remove() { throw new UnsupportedOperationException("remove() is not supported."); }
 		public Item next() {
 			if (!hasNext()) throw new NoSuchElementException("There are no more items.");
-			Item item = current.item;
-			current = current.next;
-			return item;
+			return items[(head + current++) & (items.length - 1)];
 		}
 	}
 	
@@ -175,4 +311,3 @@ public class Deque<Item> implements Iterable<Item> {
 	}
 
 }
-
@@ -0,0 +1,186 @@
+/**************************************************************************************
+ *  Compilation:   javac DoubleDeque.java
+ *  Execution:     java DoubleDeque
+ *  
+ *  Deque of double values, without boxing: the same circular array as Deque (power-of-two
+ *  capacity, index masking, doubling when full and halving at a quarter full), but over
+ *  a double[], so adding, removing and iterating allocate nothing per item.
+ *  
+ *  IntDeque, LongDeque and DoubleDeque are the same code over different element types,
+ *  as generics would box the values; a change to one of them goes to all three.
+ *  
+ *  Constructor: public DoubleDeque()                         // construct an empty deque
+ *  Method:      public boolean isEmpty()                     // is the deque empty?
+ *               public int size()                            // return the number of items on the deque
+ *               public void addFirst(double item)            // add the item to the front
+ *               public void addLast(double item)             // add the item to the end
+ *               public double removeFirst()                  // remove and return the item from the front
+ *               public double removeLast()                   // remove and return the item from the end
+ *               public int drainTo(double[] a)               // remove items from the front into a
+ *               public PrimitiveIterator.OfDouble iterator() // iterator over items in order from front to end
+ *               public static void main(String[] args)       // unit testing
+ *****************************************************************************************************/
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class DoubleDeque {
+	
+	private static final int MIN_CAPACITY = 8; // smallest array, a power of two
+	
+	private double[] items; // items[(head + i) & (items.length - 1)] = i-th item from the front
+	private int head; // index of the front item
+	private int dequeSize;
+	
+	/**
+	 * construct an empty deque
+	 */
+	public DoubleDeque() {
+		this.items = new double[MIN_CAPACITY];
+	}
+	
+	/**
+	 * is the deque empty?
+	 * @return true if the deque is empty; vice versa
+	 */
+	public boolean isEmpty() {
+		return dequeSize == 0;
+	}
+	
+	/**
+	 * @return the number of items on the deque
+	 */
+	public int size() {
+		return dequeSize;
+	}
+	
+	/**
+	 * add the item to the front
+	 * @param item
+	 * @throws IllegalStateException if the deque already holds 2^30 items
+	 */
+	public void addFirst(double item) {
+		if (dequeSize == items.length) grow();
+		head = (head - 1) & (items.length - 1);
+		items[head] = item;
+		dequeSize++;
+	}
+	
+	/**
+	 * add the item to the end
+	 * @param item
+	 * @throws IllegalStateException if the deque already holds 2^30 items
+	 */
+	public void addLast(double item) {
+		if (dequeSize == items.length) grow();
+		items[(head + dequeSize) & (items.length - 1)] = item;
+		dequeSize++;
+	}
+	
+	/**
+	 * remove and return the item from the front
+	 * @throws NoSuchElementException if the deque is empty
+	 * @return the item from the front
+	 */
+	public double removeFirst() {
+		if (dequeSize == 0) throw new NoSuchElementException("There is no item in DoubleDeque.");
+		double temp = items[head];
+		head = (head + 1) & (items.length - 1);
+		dequeSize--;
+		shrinkIfSparse();
+		return temp;
+	}
+	
+	/**
+	 * remove and return the item from the end
+	 * @throws NoSuchElementException if the deque is empty
+	 * @return the item from the end
+	 */
+	public double removeLast() {
+		if (dequeSize == 0) throw new NoSuchElementException("There is no item in DoubleDeque.");
+		double temp = items[(head + dequeSize - 1) & (items.length - 1)];
+		dequeSize--;
+		shrinkIfSparse();
+		return temp;
+	}
+	
+	/**
+	 * remove items from the front into a, as many as fit
+	 * @param a array the items are copied to, front item at index 0
+	 * @return number of items removed
+	 */
+	public int drainTo(double[] a) {
+		return drainTo(a, 0, a.length);
+	}
+	
+	/**
+	 * remove up to maxItems items from the front into a[offset..)
+	 * @param a array the items are copied to
+	 * @param offset index of a that receives the front item
+	 * @param maxItems most items to remove
+	 * @throws IndexOutOfBoundsException if offset and maxItems don't fit in a
+	 * @return number of items removed
+	 */
+	public int drainTo(double[] a, int offset, int maxItems) {
+		if (offset < 0 || maxItems < 0 || offset > a.length - maxItems)
+			throw new IndexOutOfBoundsException("offset " + offset + " and maxItems " + maxItems + " don't fit in an array of " + a.length);
+		int count = Math.min(maxItems, dequeSize);
+		int firstPart = Math.min(count, items.length - head); // items from head up to the end of the array
+		System.arraycopy(items, head, a, offset, firstPart);
+		System.arraycopy(items, 0, a, offset + firstPart, count - firstPart); // items that wrapped around
+		head = (head + count) & (items.length - 1);
+		dequeSize -= count;
+		int capacity = items.length;
+		while (capacity > MIN_CAPACITY && dequeSize <= capacity / 4)
+			capacity /= 2;
+		if (capacity < items.length) resize(capacity);
+		return count;
+	}
+	
+	// double the array, which stops at 2^30 slots as the next power of two overflows an int
+	private void grow() {
+		if (items.length > (1 << 29)) throw new IllegalStateException("DoubleDeque is too large.");
+		resize(2 * items.length);
+	}
+	
+	// halve the array once it is a quarter full, so it is half full afterwards
+	private void shrinkIfSparse() {
+		if (items.length > MIN_CAPACITY && dequeSize == items.length / 4) resize(items.length / 2);
+	}
+	
+	// move the items to an array of the given power-of-two capacity, front item at index 0
+	private void resize(int capacity) {
+		double[] resized = new double[capacity];
+		int firstPart = Math.min(dequeSize, items.length - head);
+		System.arraycopy(items, head, resized, 0, firstPart);
+		System.arraycopy(items, 0, resized, firstPart, dequeSize - firstPart);
+		items = resized;
+		head = 0;
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException if the client calls the remove() method in the 
+	 *         iterator
+	 * @throws NoSuchElementException if the client calls nextDouble() in the iterator 
+	 *         and there are no more items to return.
+	 * @return an iterator over items in order from front to end, nextDouble() doesn't box
+	 */
+	public PrimitiveIterator.OfDouble iterator() { return new ArrayIterator(); }
+	
+	private class ArrayIterator implements PrimitiveIterator.OfDouble {
+		private int current = 0; // position from the front of the next item
+		public boolean hasNext() { return current < dequeSize; }
+		public void remove() { throw new UnsupportedOperationException("remove() is not supported."); }
+		public double nextDouble() {
+			if (!hasNext()) throw new NoSuchElementException("There are no more items.");
+			return items[(head + current++) & (items.length - 1)];
+		}
+	}
+	
+	/**
+	 * unit testing
+	 * @param args
+	 */
+	public static void main(String[] args) {
+	}
+
+}
@@ -16,12 +16,19 @@
  *		    public void enqueue(Item item)           // add the item
  *		    public Item dequeue()                    // remove and return a random item
  *		    public Item sample()                     // return (but do not remove) a random item
+ *		    public void addAll(Collection<? extends Item> c) // add all items of c
+ *		    public Object[] toArray()                // return the items in an array
  *		    public Iterator<Item> iterator()         // return an independent iterator over items in random order
+ *		    public Spliterator<Item> spliterator()   // return an independent, sized spliterator over items in random order
  *		    public static void main(String[] args)   // unit testing
  *****************************************************************************************************************************/
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 import edu.princeton.cs.algs4.StdRandom;
 
@@ -85,11 +92,38 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 	// resize queue
 	private void resize(int capacity) {
 		Item[] newQueue = (Item[]) new Object[capacity];
-		for(int i = 0; i < this.queueSize; i++)
-			newQueue[i] = this.queue[i];
+		System.arraycopy(this.queue, 0, newQueue, 0, this.queueSize);
 		this.queue = newQueue;
 	}
 	
+	/**
+	 * add all items of c, copied in one run after one resize at most
+	 * @param c
+	 * @throws NullPointerException if c or any of its items is null; the queue is unchanged then
+	 */
+	public void addAll(Collection<? extends Item> c) {
+		if (c == null) throw new NullPointerException();
+		Object[] added = c.toArray();
+		for (Object item : added)
+			if (item == null) throw new NullPointerException();
+		int capacity = this.queue.length;
+		while (capacity < this.queueSize + added.length) {
+			if (capacity > (1 << 29)) throw new IllegalStateException("RandomizedQueue is too large.");
+			capacity *= 2;
+		}
+		if (capacity > this.queue.length) resize(capacity);
+		System.arraycopy(added, 0, this.queue, this.queueSize, added.length);
+		this.queueSize += added.length;
+	}
+	
+	/**
+	 * return a new array of the items, in no particular order
+	 * @return
+	 */
+	public Object[] toArray() {
+		return Arrays.copyOf(this.queue, this.queueSize, Object[].class);
+	}
+	
 	/**
 	 * return (but do not remove) a random item
 	 * @throws NoSuchElementException if the client attempts to sample an item from an empty queue
@@ -106,6 +140,18 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 	 */
 	public Iterator<Item> iterator()  { return new QueueIterator(); }
 	
+	/**
+	 * return an independent spliterator over items in random order, like iterator(): it
+	 * runs over a shuffled copy of the items, so it knows its exact size and splits evenly
+	 * for parallel streams
+	 */
+	@Override
+	public Spliterator<Item> spliterator() {
+		Object[] shuffled = toArray();
+		StdRandom.shuffle(shuffled);
+		return Spliterators.spliterator(shuffled, Spliterator.NONNULL | Spliterator.IMMUTABLE);
+	}
+	
 	private class QueueIterator implements Iterator<Item> {
 		private int outputCount;
 		private Item[] iteratorArray;
@@ -0,0 +1,181 @@
+/**************************************************************************************
+ *  Compilation:   javac WorkStealingDeque.java
+ *  Execution:     java WorkStealingDeque
+ *  
+ *  Chase-Lev work-stealing deque: one owner thread pushes and pops tasks at the bottom
+ *  (LIFO, so it keeps working on what is hot in its cache), and any number of thief
+ *  threads steal from the top (FIFO, the oldest and usually largest tasks).
+ *  
+ *  The items sit in a circular array with power-of-two capacity, indexed by ever-growing
+ *  top and bottom counters masked to the array. push() and pop() are plain writes plus
+ *  one volatile write of bottom; only the owner and the thieves racing for the last item
+ *  (or thieves racing each other) meet on a CAS of top. The owner doubles the array when
+ *  it is full by copying [top, bottom) into a new one; thieves still reading the old one
+ *  see the same items at the same counters, so they never lose or duplicate a task.
+ *  (D. Chase and Y. Lev, "Dynamic Circular Work-Stealing Deque", SPAA 2005.)
+ *  
+ *  The array never shrinks, and a stolen slot keeps its reference until the owner writes
+ *  over it, since clearing it could race with that write.
+ *  
+ *  Constructor: public WorkStealingDeque()              // construct an empty deque
+ *	Method:	public void push(Item item)              // owner only: add the item at the bottom
+ *				  public Item pop()                        // owner only: remove the bottom item, or null if empty
+ *				  public Item steal()                      // any thread: remove the top item, or null if empty or lost a race
+ *				  public boolean isEmpty()                 // is the deque empty?
+ *				  public int size()                        // number of items, a snapshot
+ *				  public static void main(String[] args)   // unit testing: one owner and three thieves
+ *****************************************************************************************************/
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import edu.princeton.cs.algs4.StdOut;
+
+public class WorkStealingDeque<Item> {
+	
+	private static final int MIN_CAPACITY = 32; // initial array, a power of two
+	private static final VarHandle TOP;
+	static {
+		try {
+			TOP = MethodHandles.lookup().findVarHandle(WorkStealingDeque.class, "top", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	private volatile long top; // counter of the top item, only ever increased by a CAS
+	private volatile long bottom; // counter one past the bottom item, written by the owner only
+	private volatile Object[] items; // items[c & (items.length - 1)] = item at counter c, top <= c < bottom
+	
+	/**
+	 * construct an empty deque
+	 */
+	public WorkStealingDeque() {
+		this.items = new Object[MIN_CAPACITY];
+	}
+	
+	/**
+	 * add the item at the bottom; must only be called by the owner thread
+	 * @param item
+	 * @throws NullPointerException if the param "item" is null
+	 */
+	public void push(Item item) {
+		if (item == null) throw new NullPointerException("Item you added is null.");
+		long b = bottom;
+		long t = top;
+		Object[] a = items;
+		if (b - t >= a.length) a = grow(a, t, b);
+		a[(int) b & (a.length - 1)] = item;
+		bottom = b + 1; // publishes the item to the thieves
+	}
+	
+	// copy items [t, b) to an array twice as large, at the same counters
+	private Object[] grow(Object[] a, long t, long b) {
+		Object[] grown = new Object[2 * a.length];
+		for (long c = t; c < b; c++)
+			grown[(int) c & (grown.length - 1)] = a[(int) c & (a.length - 1)];
+		items = grown;
+		return grown;
+	}
+	
+	/**
+	 * remove and return the item at the bottom; must only be called by the owner thread
+	 * @return the bottom item, or null if the deque is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public Item pop() {
+		long b = bottom - 1;
+		Object[] a = items;
+		bottom = b; // claim the bottom item before looking at top (volatile write, then volatile read)
+		long t = top;
+		if (t > b) { // empty
+			bottom = b + 1;
+			return null;
+		}
+		int slot = (int) b & (a.length - 1);
+		Item item = (Item) a[slot];
+		if (t < b) { // more items left, no thief can reach this one
+			a[slot] = null;
+			return item;
+		}
+		// last item: race the thieves for it
+		if (!TOP.compareAndSet(this, t, t + 1))
+			item = null;
+		bottom = b + 1;
+		return item;
+	}
+	
+	/**
+	 * remove and return the item at the top; may be called by any thread
+	 * @return the top item, or null if the deque is empty or another thread took the
+	 *         top item first (callers usually just try again or move on to another victim)
+	 */
+	@SuppressWarnings("unchecked")
+	public Item steal() {
+		long t = top;
+		long b = bottom;
+		if (t >= b) return null;
+		Object[] a = items;
+		Item item = (Item) a[(int) t & (a.length - 1)];
+		if (!TOP.compareAndSet(this, t, t + 1)) return null;
+		return item;
+	}
+	
+	/**
+	 * is the deque empty?
+	 * @return true if the deque is empty; vice versa
+	 */
+	public boolean isEmpty() {
+		return bottom <= top;
+	}
+	
+	/**
+	 * @return the number of items on the deque, a snapshot that other threads may have changed
+	 */
+	public int size() {
+		long t = top;
+		return (int) Math.max(0, bottom - t);
+	}
+	
+	/**
+	 * unit testing: the owner pushes 500000 items and pops after about a third of the
+	 * pushes while 3 thieves steal, then pops what is left; every item should have come
+	 * out exactly once. The array starts small, so it grows under the thieves many times
+	 * @param args
+	 * @throws InterruptedException if interrupted while waiting for the thieves
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		final int n = 500000;
+		WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+		AtomicIntegerArray seen = new AtomicIntegerArray(n); // times each item came out
+		AtomicBoolean done = new AtomicBoolean(); // the owner has pushed everything
+		Thread[] thieves = new Thread[3];
+		for (int k = 0; k < thieves.length; k++) {
+			thieves[k] = new Thread(() -> {
+				while (!done.get() || !deque.isEmpty()) {
+					Integer item = deque.steal();
+					if (item != null) seen.incrementAndGet(item);
+				}
+			});
+			thieves[k].start();
+		}
+		Random random = new Random(0);
+		Integer item;
+		for (int i = 0; i < n; i++) {
+			deque.push(i);
+			if (random.nextInt(3) == 0 && (item = deque.pop()) != null)
+				seen.incrementAndGet(item);
+		}
+		while ((item = deque.pop()) != null)
+			seen.incrementAndGet(item);
+		done.set(true);
+		for (Thread thief : thieves)
+			thief.join();
+		for (int i = 0; i < n; i++)
+			if (seen.get(i) != 1) throw new AssertionError("item " + i + " came out " + seen.get(i) + " times");
+		StdOut.println("WorkStealingDeque: " + n + " items, each removed exactly once");
+	}
+
+}